@@ -0,0 +1,64 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import nl.wur.daghub.DaghubApplication;
+
+/**
+ * The dashboard application without web server on a benchmark database.
+ */
+public final class BenchmarkContext {
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int solutions, Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", BenchmarkDatabase.getUrl(solutions));
+        defaults.put("spring.datasource.username", BenchmarkDatabase.getUsername());
+        defaults.put("spring.datasource.password", BenchmarkDatabase.getPassword());
+        defaults.put("spring.jpa.open-in-view", false);
+        defaults.put("spring.jpa.properties.hibernate.default_batch_fetch_size", 100);
+        defaults.put("spring.sql.init.mode", "never");
+        defaults.put("daghub.url", "http://localhost/");
+        defaults.put("daghub.cors.url.local", "http://localhost:8080");
+        defaults.put("daghub.cors.url.local2", "http://localhost:3000");
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(DaghubApplication.class).web(WebApplicationType.NONE)
+                .properties(defaults).run();
+    }
+
+    public static ConfigurableApplicationContext start(int solutions) {
+        return start(solutions, Map.of());
+    }
+}
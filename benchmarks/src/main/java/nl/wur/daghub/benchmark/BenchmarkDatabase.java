@@ -0,0 +1,116 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One database schema per scale, created from schema.sql and filled by the
+ * DataGenerator. An embedded PostgreSQL is started unless an existing server is
+ * given with -Ddaghub.benchmark.url (plus .username and .password).
+ */
+@Slf4j
+public final class BenchmarkDatabase {
+    private static final String URL = System.getProperty("daghub.benchmark.url");
+    private static final String USERNAME = System.getProperty("daghub.benchmark.username", "postgres");
+    private static final String PASSWORD = System.getProperty("daghub.benchmark.password", "postgres");
+    private static final String SCHEMA = System.getProperty("daghub.benchmark.schema",
+            "../packages/database/schema.sql");
+    private static final long SEED = Long.getLong("daghub.benchmark.seed", 42);
+
+    private static EmbeddedPostgres postgres;
+    private static final Map<Integer, String> urls = new HashMap<>();
+
+    private BenchmarkDatabase() {
+    }
+
+    public static String getUsername() {
+        return USERNAME;
+    }
+
+    public static String getPassword() {
+        return PASSWORD;
+    }
+
+    /**
+     * JDBC url of a schema holding the given number of solutions.
+     */
+    public static synchronized String getUrl(int solutions) {
+        return urls.computeIfAbsent(solutions, BenchmarkDatabase::create);
+    }
+
+    private static String create(int solutions) {
+        String schema = "daghub_" + solutions;
+        String url = getServerUrl();
+        try (Connection connection = DriverManager.getConnection(url, USERNAME, PASSWORD);
+                Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            statement.execute("CREATE SCHEMA " + schema);
+            statement.execute("SET search_path TO " + schema);
+            statement.execute(Files.readString(Path.of(SCHEMA)));
+            new DataGenerator(connection, SEED).generate(solutions);
+            // cleans the pending lists of the GIN indexes filled by COPY, as autovacuum does in production
+            statement.execute("VACUUM ANALYZE");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Benchmark database " + schema + ": " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return url + (url.contains("?") ? "&" : "?") + "currentSchema=" + schema;
+    }
+
+    private static String getServerUrl() {
+        if (URL != null)
+            return URL;
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    log.warn("==> embedded postgres " + e.getMessage());
+                }
+            }));
+        }
+        return postgres.getJdbcUrl(USERNAME, "postgres");
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.daghub.service.ServiceFacetIndex;
+
+/**
+ * The facet index compared with RepositorySolution.filterSolutions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkFacetIndex {
+    @Param({ "1000", "10000", "100000" })
+    private int solutions;
+
+    // technologies;useCases;countries, ids separated by commas
+    @Param({ ";;", "1;;", "1,2;3;", ";;ABX,ACX,ADX", "1,2;3,4;ABX" })
+    private String filter;
+
+    private ConfigurableApplicationContext context;
+    private RepositorySolution repoSolution;
+    private ServiceFacetIndex serviceFacetIndex;
+    private BenchmarkQuery.Filter parsed;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start(solutions);
+        repoSolution = context.getBean(RepositorySolution.class);
+        serviceFacetIndex = context.getBean(ServiceFacetIndex.class);
+        parsed = BenchmarkQuery.Filter.parse(filter);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object sql() {
+        String none = SqlArray.of(List.of());
+        return repoSolution.filterSolutions(SqlArray.of(parsed.getTechnologies()), none,
+                SqlArray.of(parsed.getUseCases()), none, none, none, SqlArray.of(parsed.getCountries()));
+    }
+
+    @Benchmark
+    public Object bitmap() {
+        return serviceFacetIndex.filterSolutions(parsed.getTechnologies(), List.of(), parsed.getUseCases(),
+                List.of(), List.of(), List.of(), parsed.getCountries());
+    }
+}
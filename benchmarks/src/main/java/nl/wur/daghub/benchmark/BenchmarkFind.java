@@ -0,0 +1,99 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import nl.wur.daghub.service.ServiceDaghub;
+
+/**
+ * ServiceDaghub.find for a lookup list and a solution, and the batch details.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkFind {
+    @Param({ "1000", "10000", "100000" })
+    private int solutions;
+
+    private ConfigurableApplicationContext context;
+    private ServiceDaghub serviceDaghub;
+    private Random random;
+    private List<Integer> batch;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start(solutions);
+        serviceDaghub = context.getBean(ServiceDaghub.class);
+        random = new Random(42);
+        batch = random.ints(1, solutions + 1).distinct().limit(20).boxed().collect(Collectors.toList());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object findTechnology() {
+        return serviceDaghub.find("technology", null);
+    }
+
+    @Benchmark
+    public Object findCountry() {
+        return serviceDaghub.find("country", null);
+    }
+
+    @Benchmark
+    public Object findSolution() {
+        return serviceDaghub.find("solution", 1 + random.nextInt(solutions));
+    }
+
+    @Benchmark
+    public Object getSolutions() {
+        return serviceDaghub.getSolutions(batch);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nl.wur.daghub.database.domain.LogQuery;
+
+/**
+ * LogQuery construction (sorting and formatting of the filter), no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BenchmarkLogQuery {
+    @Param({ "0", "5", "50" })
+    private int size;
+
+    private List<Integer> ids;
+    private List<String> countries;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        ids = new ArrayList<>();
+        countries = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ids.add(random.nextInt(100));
+            countries.add("C" + random.nextInt(240));
+        }
+    }
+
+    @Benchmark
+    public LogQuery create() {
+        return new LogQuery(new ArrayList<>(ids), new ArrayList<>(ids), new ArrayList<>(ids), new ArrayList<>(ids),
+                new ArrayList<>(ids), new ArrayList<>(ids), new ArrayList<>(countries));
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import nl.wur.daghub.database.repository.RepositoryOrganisation;
+import nl.wur.daghub.database.repository.RepositorySolution;
+
+/**
+ * The owner dashboard of dataentry: the solutions and organisations of an
+ * owner and the owners of its organisations, looked up in the owners arrays.
+ * The generated owners are Zipf distributed, user4 owns the most entries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkOwner {
+    @Param({ "1000", "10000", "100000" })
+    private int solutions;
+
+    @Param({ "user4@example.org" })
+    private String owner;
+
+    private ConfigurableApplicationContext context;
+    private RepositorySolution repoSolution;
+    private RepositoryOrganisation repoOrganisation;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start(solutions);
+        repoSolution = context.getBean(RepositorySolution.class);
+        repoOrganisation = context.getBean(RepositoryOrganisation.class);
+        // the JMH threads share the authentication
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(owner, null,
+                AuthorityUtils.createAuthorityList("ROLE_OWNER")));
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public Object solutions() {
+        return repoSolution.findAllByUserRole();
+    }
+
+    @Benchmark
+    public Object organisations() {
+        return repoOrganisation.findAllByUserRole();
+    }
+
+    @Benchmark
+    public List<String> owners() {
+        return repoOrganisation.findOwners();
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import nl.wur.daghub.service.ServiceDaghub;
+
+/**
+ * ServiceDaghub.query (filter, getQueryReply) without the reply cache, on the
+ * in-memory indexes ("index") or on the native queries only ("sql").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkQuery {
+    @Param({ "1000", "10000", "100000" })
+    private int solutions;
+
+    @Param({ "index", "sql" })
+    private String mode;
+
+    // technologies;useCases;countries, ids separated by commas
+    @Param({ ";;", "1;;", "1,2;3;", ";;ABX,ACX,ADX", "1,2;3,4;ABX" })
+    private String filter;
+
+    private ConfigurableApplicationContext context;
+    private ServiceDaghub serviceDaghub;
+    private Filter parsed;
+
+    @Setup
+    public void setup() {
+        boolean index = "index".equals(mode);
+        context = BenchmarkContext.start(solutions, Map.of("daghub.index.enabled", index,
+                "daghub.aggregate.enabled", index, "daghub.cache.query.maximum-size", 0));
+        serviceDaghub = context.getBean(ServiceDaghub.class);
+        parsed = Filter.parse(filter);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object query() {
+        // LogQuery sorts the lists in place
+        return serviceDaghub.query(new ArrayList<>(parsed.getTechnologies()), new ArrayList<>(),
+                new ArrayList<>(parsed.getUseCases()), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(parsed.getCountries()));
+    }
+
+    static class Filter {
+        private final List<Integer> technologies;
+        private final List<Integer> useCases;
+        private final List<String> countries;
+
+        private Filter(List<Integer> technologies, List<Integer> useCases, List<String> countries) {
+            this.technologies = technologies;
+            this.useCases = useCases;
+            this.countries = countries;
+        }
+
+        static Filter parse(String filter) {
+            String[] parts = filter.split(";", -1);
+            return new Filter(integers(parts[0]), integers(parts[1]),
+                    parts[2].isEmpty() ? List.of() : List.of(parts[2].split(",")));
+        }
+
+        List<Integer> getTechnologies() {
+            return technologies;
+        }
+
+        List<Integer> getUseCases() {
+            return useCases;
+        }
+
+        List<String> getCountries() {
+            return countries;
+        }
+
+        private static List<Integer> integers(String value) {
+            List<Integer> result = new ArrayList<>();
+            if (!value.isEmpty())
+                for (String id : value.split(","))
+                    result.add(Integer.valueOf(id));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.service.ServiceDaghub;
+
+/**
+ * The full-text search of /api/search, without and with a filter, and the
+ * solutions proposed to a registering user by the domain of its email and its
+ * company, both on the document of the read model solution_facets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkSearch {
+    @Param({ "1000", "10000", "100000" })
+    private int solutions;
+
+    private ConfigurableApplicationContext context;
+    private ServiceDaghub serviceDaghub;
+    private RepositorySolution repoSolution;
+    private Random random;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start(solutions);
+        serviceDaghub = context.getBean(ServiceDaghub.class);
+        repoSolution = context.getBean(RepositorySolution.class);
+        random = new Random(42);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object search() {
+        return serviceDaghub.search("organisation " + (1 + random.nextInt(100)), List.of(), List.of(), List.of(),
+                List.of(), List.of(), List.of(), List.of(), 0, 20);
+    }
+
+    @Benchmark
+    public Object searchFiltered() {
+        return serviceDaghub.search("solution " + (1 + random.nextInt(100)), List.of(1, 2), List.of(), List.of(),
+                List.of(), List.of(), List.of(), List.of(), 0, 20);
+    }
+
+    @Benchmark
+    public Object userSolutions() {
+        int id = 1 + random.nextInt(solutions);
+        return repoSolution.findByEmailOrCompany("wur.nl", "The Solution " + id + " Company");
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.wur.daghub.database.domain.Solution;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.service.ServiceDaghub;
+
+/**
+ * Jackson serialization of Solution entities (as in find "solution") and of a
+ * full /api/query reply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BenchmarkSerialization {
+    @Param({ "1000", "10000" })
+    private int solutions;
+
+    private ConfigurableApplicationContext context;
+    private ObjectMapper mapper;
+    private List<Solution> entities;
+    private Map<String, Object> reply;
+
+    @Setup
+    public void setup() {
+        context = BenchmarkContext.start(solutions);
+        mapper = context.getBean(ObjectMapper.class);
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 100; id++)
+            ids.add(id);
+        // the lazy associations are loaded once within the transaction, the benchmarks serialise detached entities
+        entities = new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status -> {
+            List<Solution> list = context.getBean(RepositorySolution.class).findDetailByIdIn(ids);
+            mapper.convertValue(list, List.class);
+            return list;
+        });
+        reply = context.getBean(ServiceDaghub.class).query(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] solution() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(entities.get(0));
+    }
+
+    @Benchmark
+    public byte[] solutions() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(entities);
+    }
+
+    @Benchmark
+    public Object solutionToMap() {
+        return new ObjectMapper().convertValue(entities.get(0), Map.class);
+    }
+
+    @Benchmark
+    public byte[] queryReply() throws JsonProcessingException {
+        return mapper.writeValueAsBytes(reply);
+    }
+}
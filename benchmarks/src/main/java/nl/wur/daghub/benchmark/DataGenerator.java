@@ -0,0 +1,489 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills an empty schema (schema.sql) with a reproducible synthetic catalogue.
+ * Every table is loaded with COPY. Popularity is skewed (Zipf): a few
+ * technologies, countries and organisations account for most links, as in the
+ * production data, and user counts follow a log-normal distribution. Most
+ * urls have a url check of the last two weeks, a few are broken or never
+ * checked.
+ *
+ * java ... nl.wur.daghub.benchmark.DataGenerator URL USERNAME PASSWORD SOLUTIONS [SEED]
+ */
+@Slf4j
+public class DataGenerator {
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 6, 1, 12, 0);
+
+    private static final int FUNDING_STAGES = 6;
+    private static final int GROWTH_STAGES = 5;
+    private static final int BUSINESS_MODELS = 8;
+    private static final int CHANNELS = 19;
+    private static final int LANGUAGES = 12;
+    private static final int ORGANISATION_TYPES = 8;
+    private static final int SECTORS = 10;
+    private static final int TAGS = 30;
+    private static final int TECHNOLOGIES = 24;
+    private static final int USE_CASES = 8;
+    private static final int SUB_USE_CASES_PER_USE_CASE = 5;
+    private static final int COUNTRIES = 240;
+    private static final int COUNTRY_REGIONS = 6;
+
+    private final Connection connection;
+    private final CopyManager copyManager;
+    private final Random random;
+    private final List<String> countries = new ArrayList<>();
+    private final List<String> lmicCountries = new ArrayList<>();
+    private final List<int[]> regionsByCountry = new ArrayList<>();
+    private final List<String> urls = new ArrayList<>();
+    private long rows;
+
+    public DataGenerator(Connection connection, long seed) throws SQLException {
+        this.connection = connection;
+        this.copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 4) {
+            System.err.println("DataGenerator URL USERNAME PASSWORD SOLUTIONS [SEED]");
+            System.exit(1);
+        }
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            new DataGenerator(connection, args.length > 4 ? Long.parseLong(args[4]) : 42)
+                    .generate(Integer.parseInt(args[3]));
+        }
+    }
+
+    public void generate(int solutions) throws SQLException {
+        long start = System.currentTimeMillis();
+        int organisations = Math.max(1, solutions / 3);
+        int users = Math.max(1, solutions / 4);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            skipForeignKeyChecks();
+            lookup("business_funding_stages", "Funding stage", FUNDING_STAGES);
+            lookup("business_growth_stages", "Growth stage", GROWTH_STAGES);
+            lookup("business_models", "Business model", BUSINESS_MODELS);
+            lookup("channels", "Channel", CHANNELS);
+            lookup("languages", "Language", LANGUAGES);
+            lookup("organisation_types", "Organisation type", ORGANISATION_TYPES);
+            lookup("sectors", "Sector", SECTORS);
+            lookup("tags", "Tag", TAGS);
+            lookup("technologies", "Technology", TECHNOLOGIES);
+            lookup("use_cases", "Use case", USE_CASES);
+            subUseCases();
+            countries();
+            countryRegions();
+            regions();
+            users(users);
+            organisations(organisations, users);
+            solutions(solutions, organisations, users);
+            logQueries(solutions);
+            // last, so that the other tables are the same as before for a seed
+            urlChecks();
+            sequences();
+            solutionFacets();
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw e instanceof SQLException ? (SQLException) e : new SQLException(e.getMessage(), e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        log.info("==> generated " + solutions + " solutions, " + rows + " rows in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // the generated rows are consistent, so the per row foreign key triggers are skipped when allowed (superuser)
+    private void skipForeignKeyChecks() throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT current_setting('is_superuser')")) {
+            if (result.next() && "on".equals(result.getString(1)))
+                statement.execute("SET LOCAL session_replication_role = replica");
+            else
+                log.info("==> no superuser, foreign keys are checked per row");
+        }
+    }
+
+    private void lookup(String table, String name, int size) throws SQLException, IOException {
+        try (Copy copy = copy(table, "id, description")) {
+            for (int id = 1; id <= size; id++)
+                copy.row(id, name + " " + id);
+        }
+    }
+
+    private void subUseCases() throws SQLException, IOException {
+        try (Copy copy = copy("sub_use_cases", "id, usecase_id, description")) {
+            for (int id = 1; id <= USE_CASES * SUB_USE_CASES_PER_USE_CASE; id++)
+                copy.row(id, (id - 1) / SUB_USE_CASES_PER_USE_CASE + 1, "Sub use case " + id);
+        }
+    }
+
+    // three letter codes, four out of five are low- and middle-income
+    private void countries() throws SQLException, IOException {
+        try (Copy copy = copy("countries", "id, description, lmic")) {
+            for (int i = 0; i < COUNTRIES; i++) {
+                String id = "" + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26) + "X";
+                boolean lmic = i % 5 != 0;
+                countries.add(id);
+                if (lmic)
+                    lmicCountries.add(id);
+                copy.row(id, "Country " + id, lmic);
+            }
+        }
+    }
+
+    private void countryRegions() throws SQLException, IOException {
+        try (Copy copy = copy("countryregions", "id, label, description")) {
+            for (int id = 1; id <= COUNTRY_REGIONS; id++)
+                copy.row(id, "Region" + id, "Country region " + id);
+        }
+        try (Copy copy = copy("countries_in_countryregions", "country_id, countryregions_id")) {
+            for (int i = 0; i < countries.size(); i++)
+                copy.row(countries.get(i), i % COUNTRY_REGIONS + 1);
+        }
+    }
+
+    private void regions() throws SQLException, IOException {
+        Zipf size = new Zipf(12, 1.2);
+        try (Copy copy = copy("regions", "id, country_id, description")) {
+            int id = 0;
+            for (String country : countries) {
+                int[] regions = new int[size.next()];
+                for (int i = 0; i < regions.length; i++) {
+                    regions[i] = ++id;
+                    copy.row(id, country, "Region " + (i + 1) + " of " + country);
+                }
+                regionsByCountry.add(regions);
+            }
+        }
+    }
+
+    private void users(int size) throws SQLException, IOException {
+        try (Copy copy = copy("users", "id, name, company, email, password, roles, enabled, datecreated, approved")) {
+            for (int id = 1; id <= size; id++)
+                copy.row(id, "User " + id, "Company " + id, "user" + id + "@example.org",
+                        "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z5SYRRxZbAx9FRwpuR/XbLTu",
+                        id <= 3 ? "{ADMIN}" : "{OWNER}", true, timestamp(random.nextInt(1500)), true);
+        }
+    }
+
+    private void organisations(int size, int users) throws SQLException, IOException {
+        Zipf type = new Zipf(ORGANISATION_TYPES, 1.0);
+        Zipf growth = new Zipf(GROWTH_STAGES, 0.8);
+        Zipf funding = new Zipf(FUNDING_STAGES, 0.8);
+        Zipf country = new Zipf(countries.size(), 1.1);
+        Zipf owner = new Zipf(users, 0.6);
+        try (Copy copy = copy("organisations", "id, name, description, url, organisationtype_id, founded,"
+                + " hqcountry_id, hqregion_id, business_growth_stage_id, business_funding_stage_id,"
+                + " datecreated, datemodified, dateremoved, owners")) {
+            for (int id = 1; id <= size; id++) {
+                int hq = country.next() - 1;
+                int[] regions = regionsByCountry.get(hq);
+                int created = random.nextInt(1500);
+                String url = "https://organisation" + id + ".example.org";
+                urls.add(url);
+                copy.row(id, "Organisation " + id, "Description of organisation " + id, url, type.next(),
+                        1980 + random.nextInt(43),
+                        countries.get(hq), regions[random.nextInt(regions.length)], growth.next(), funding.next(),
+                        timestamp(created), random.nextInt(3) == 0 ? timestamp(random.nextInt(created + 1)) : null,
+                        random.nextInt(50) == 0 ? timestamp(0) : null, "{" + owner.next() + "}");
+            }
+        }
+        try (Copy copy = copy("organisation_translations", "organisation_id, language_id, translation")) {
+            for (int id = 1; id <= size; id++)
+                for (int language : distinct(LANGUAGES, translations(), null))
+                    copy.row(id, language, "Translation " + language + " of organisation " + id);
+        }
+    }
+
+    private void solutions(int size, int organisations, int users) throws SQLException, IOException {
+        Zipf organisation = new Zipf(organisations, 0.9);
+        Zipf subUseCase = new Zipf(USE_CASES * SUB_USE_CASES_PER_USE_CASE, 0.9);
+        Zipf owner = new Zipf(users, 0.6);
+        int[] primary = new int[size + 1];
+        try (Copy copy = copy("solutions", "id, name, description, url, organisation_id, launch, platform, bundling,"
+                + " primarysubusecase_id, registeredusers, activeusers, shfusers, womenusers, youthusers, revenue,"
+                + " yieldlowerbound, yieldupperbound, incomelowerbound, incomeupperbound,"
+                + " datecreated, datemodified, dateremoved, visible, owners")) {
+            for (int id = 1; id <= size; id++) {
+                Integer registered = random.nextInt(10) < 7 ? users() : null;
+                Integer active = registered == null ? null : (int) (registered * random.nextDouble());
+                int created = random.nextInt(1500);
+                double yield = random.nextInt(30);
+                double income = random.nextInt(30);
+                primary[id] = subUseCase.next();
+                String url = random.nextInt(20) == 0 ? null : "https://solution" + id + ".example.org";
+                if (url != null)
+                    urls.add(url);
+                copy.row(id, "Solution " + id, "Description of solution " + id, url,
+                        organisation.next(), 2023 - (int) Math.min(120, Math.abs(random.nextGaussian() * 6)),
+                        random.nextInt(2), random.nextInt(2), primary[id], registered, active,
+                        share(registered, 0.6), share(registered, 0.4), share(registered, 0.3),
+                        random.nextInt(4) == 0 ? random.nextInt(1000000) : null,
+                        yield, yield + random.nextInt(50), income, income + random.nextInt(50),
+                        timestamp(created), random.nextInt(3) == 0 ? timestamp(random.nextInt(created + 1)) : null,
+                        random.nextInt(30) == 0 ? timestamp(0) : null, random.nextInt(10) != 0,
+                        "{" + owner.next() + "}");
+            }
+        }
+        links("technologies_in_solutions", "technology_id", size, new Zipf(TECHNOLOGIES, 1.0), 4, null);
+        links("channels_in_solutions", "channel_id", size, new Zipf(CHANNELS, 1.0), 3, null);
+        links("sub_use_cases_in_solutions", "subusecase_id", size, subUseCase, 3, primary);
+        links("tags_in_solutions", "tag_id", size, new Zipf(TAGS, 1.1), 4, null);
+        links("sectors_in_solutions", "sector_id", size, new Zipf(SECTORS, 0.8), 3, null);
+        links("business_models_in_solutions", "businessmodel_id", size, new Zipf(BUSINESS_MODELS, 0.8), 2, null);
+        links("languages_in_solutions", "language_id", size, new Zipf(LANGUAGES, 1.5), 3, null);
+        countriesInSolutions(size);
+        try (Copy copy = copy("solution_translations", "solution_id, language_id, translation")) {
+            for (int id = 1; id <= size; id++)
+                for (int language : distinct(LANGUAGES, translations(), null))
+                    copy.row(id, language, "Translation " + language + " of solution " + id);
+        }
+    }
+
+    // 1..max distinct values per solution, fewer values being more likely; the primary value is always linked
+    private void links(String table, String column, int solutions, Zipf values, int max, int[] primary)
+            throws SQLException, IOException {
+        Zipf count = new Zipf(max, 1.5);
+        try (Copy copy = copy(table, column + ", solution_id")) {
+            for (int id = 1; id <= solutions; id++)
+                for (int value : distinct(values, count.next(), primary == null ? null : primary[id]))
+                    copy.row(value, id);
+        }
+    }
+
+    // mostly a single country, some solutions are available in dozens; their regions follow
+    private void countriesInSolutions(int solutions) throws SQLException, IOException {
+        Zipf country = new Zipf(countries.size(), 1.1);
+        Zipf count = new Zipf(40, 1.3);
+        List<int[]> regions = new ArrayList<>();
+        try (Copy copy = copy("countries_in_solutions", "country_id, solution_id")) {
+            for (int id = 1; id <= solutions; id++) {
+                int[] selected = distinct(country, count.next(), null);
+                for (int i : selected)
+                    copy.row(countries.get(i - 1), id);
+                if (selected.length == 1 && random.nextInt(4) == 0) {
+                    int[] countryRegions = regionsByCountry.get(selected[0] - 1);
+                    regions.add(new int[] { id, countryRegions[random.nextInt(countryRegions.length)] });
+                }
+            }
+        }
+        try (Copy copy = copy("regions_in_solutions", "region_id, solution_id")) {
+            for (int[] region : regions)
+                copy.row(region[1], region[0]);
+        }
+    }
+
+    // dashboard usage: popular filters are repeated, most queries filter on one or two facets
+    // 1 in 10 urls never checked, 1 in 20 broken and 1 in 100 with a status change not reported yet
+    private void urlChecks() throws SQLException, IOException {
+        try (Copy copy = copy("url_checks", "url, status, reachable, location, error, datechecked, reported")) {
+            for (String url : urls) {
+                if (random.nextInt(10) == 0)
+                    continue;
+                boolean reachable = random.nextInt(20) != 0;
+                boolean timeout = !reachable && random.nextBoolean();
+                copy.row(url, reachable ? 200 : timeout ? 0 : 404, reachable,
+                        reachable && random.nextInt(30) == 0 ? url.replace("https://", "https://www.") : null,
+                        reachable ? null : timeout ? "HttpConnectTimeoutException HTTP connect timed out" : "HTTP 404",
+                        timestamp(random.nextInt(14)), random.nextInt(100) == 0 ? !reachable : reachable);
+            }
+        }
+    }
+
+    private void logQueries(int solutions) throws SQLException, IOException {
+        Zipf technology = new Zipf(TECHNOLOGIES, 1.0);
+        Zipf useCase = new Zipf(USE_CASES, 1.0);
+        Zipf country = new Zipf(lmicCountries.size(), 1.1);
+        Zipf count = new Zipf(4, 1.5);
+        try (Copy copy = copy("log_query", "currenttime, technologies, channels, usecases, organisationtypes,"
+                + " stages, tags, countries")) {
+            for (int i = 0; i < solutions * 2; i++) {
+                List<String> filterCountries = new ArrayList<>();
+                if (random.nextInt(3) == 0)
+                    for (int c : distinct(country, count.next(), null))
+                        filterCountries.add(lmicCountries.get(c - 1));
+                filterCountries.sort(null);
+                copy.row(timestamp(random.nextInt(365)) + ".000",
+                        random.nextInt(2) == 0 ? "[]" : Arrays.toString(distinct(technology, count.next(), null)),
+                        "[]", random.nextInt(3) == 0 ? Arrays.toString(distinct(useCase, count.next(), null)) : "[]",
+                        "[]", "[]", "[]", filterCountries.toString());
+            }
+        }
+    }
+
+    private void sequences() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[] { "business_funding_stages", "business_growth_stages",
+                    "business_models", "channels", "languages", "organisation_types", "sectors", "tags",
+                    "technologies", "use_cases", "sub_use_cases", "countryregions", "regions", "users",
+                    "organisations", "solutions", "log_query" })
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'),"
+                        + " (SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + "), false)");
+        }
+    }
+
+    // the read model of the dashboard, built by the function of schema.sql
+    private void solutionFacets() throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT refresh_solution_facets(NULL)")) {
+            result.next();
+            rows += result.getInt(1);
+        }
+    }
+
+    // log-normal: median around 3000, a long tail up to millions
+    private int users() {
+        return (int) Math.min(50000000, Math.exp(8 + 2.5 * random.nextGaussian()));
+    }
+
+    private Integer share(Integer users, double mean) {
+        if (users == null || random.nextInt(4) == 0)
+            return null;
+        return (int) (users * Math.max(0, Math.min(1, mean + 0.2 * random.nextGaussian())));
+    }
+
+    private int translations() {
+        return random.nextInt(5) == 0 ? 1 + random.nextInt(3) : 0;
+    }
+
+    private int[] distinct(int values, int count, Integer required) {
+        return distinct(new Zipf(values, 0), count, required);
+    }
+
+    // sorted, 1 based
+    private int[] distinct(Zipf values, int count, Integer required) {
+        TreeSet<Integer> result = new TreeSet<>();
+        if (required != null)
+            result.add(required);
+        for (int i = 0; result.size() < Math.min(count, values.size()) && i < count * 20; i++)
+            result.add(values.next());
+        return result.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String timestamp(int daysAgo) {
+        return NOW.minusDays(daysAgo).minusMinutes(daysAgo * 37L % 1440).format(TIMESTAMP);
+    }
+
+    private Copy copy(String table, String columns) throws SQLException {
+        return new Copy(copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN (FORMAT csv)"));
+    }
+
+    /**
+     * Ranks 1..size with probability proportional to 1 / rank^exponent; an
+     * exponent of 0 is uniform.
+     */
+    private class Zipf {
+        private final double[] cumulative;
+
+        private Zipf(int size, double exponent) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int rank = 1; rank <= size; rank++) {
+                sum += 1 / Math.pow(rank, exponent);
+                cumulative[rank - 1] = sum;
+            }
+        }
+
+        private int size() {
+            return cumulative.length;
+        }
+
+        private int next() {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+            return (index < 0 ? -index - 1 : index) + 1;
+        }
+    }
+
+    // CSV rows buffered and sent to the server in blocks
+    private class Copy implements AutoCloseable {
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(1 << 16);
+
+        private Copy(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        private void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    buffer.append(',');
+                Object value = values[i];
+                if (value instanceof String)
+                    buffer.append('"').append(((String) value).replace("\"", "\"\"")).append('"');
+                else if (value != null)
+                    buffer.append(value);
+            }
+            buffer.append('\n');
+            rows++;
+            if (buffer.length() >= 1 << 16)
+                flush();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive())
+                    copyIn.cancelCopy();
+            }
+        }
+    }
+}
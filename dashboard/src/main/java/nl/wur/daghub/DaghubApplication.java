@@ -28,10 +28,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EntityScan(basePackages = { "nl.wur.daghub.database.domain" })
 @EnableJpaRepositories(basePackages = { "nl.wur.daghub.database.repository" })
+@EnableScheduling
 public class DaghubApplication {
     public static void main(String[] args) {
         SpringApplication.run(DaghubApplication.class, args);
@@ -26,8 +26,12 @@ package nl.wur.daghub.controller;
 
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,36 +40,96 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import nl.wur.daghub.service.ServiceCatalogue;
 import nl.wur.daghub.service.ServiceDaghub;
+import nl.wur.daghub.service.ServiceLogQuery;
+import nl.wur.daghub.service.ServiceQueryCache;
 
 @RestController
 @CrossOrigin(origins = { "${daghub.cors.url.local}", "${daghub.cors.url.local2}" })
 @RequestMapping("/api")
 public class ControllerDaghub {
 
+    private @Value("${daghub.query.streaming:false}") boolean streaming;
+    private @Value("${daghub.solutions.max-ids:100}") int solutionsMaxIds;
     private ServiceDaghub serviceDaghub;
+    private ServiceQueryCache serviceQueryCache;
+    private ServiceLogQuery serviceLogQuery;
+    private ServiceCatalogue serviceCatalogue;
 
-    public ControllerDaghub(ServiceDaghub serviceDaghub) {
+    public ControllerDaghub(ServiceDaghub serviceDaghub, ServiceQueryCache serviceQueryCache,
+            ServiceLogQuery serviceLogQuery, ServiceCatalogue serviceCatalogue) {
         this.serviceDaghub = serviceDaghub;
+        this.serviceQueryCache = serviceQueryCache;
+        this.serviceLogQuery = serviceLogQuery;
+        this.serviceCatalogue = serviceCatalogue;
     }
 
     @GetMapping("/find/{request}")
-    public Object find(@PathVariable String request, @RequestParam(required = false) Integer id) {
-        return serviceDaghub.find(request, id);
+    public Object find(@PathVariable String request, @RequestParam(required = false) Integer id,
+            WebRequest webRequest) {
+        ServiceCatalogue.Entry entry = serviceCatalogue.get(request);
+        if (entry == null)
+            return serviceDaghub.find(request, id);
+        return serviceDaghub.timeFind(request, "catalogue", () -> {
+            if (webRequest.checkNotModified(entry.getEtag()))
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.getEtag()).build();
+            return ResponseEntity.ok().eTag(entry.getEtag()).cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_JSON).body(entry.getJson());
+        });
+    }
+
+    @GetMapping("/solutions")
+    public Map<Integer, Map<String, Object>> solutions(@RequestParam List<Integer> ids) {
+        if (ids.size() > solutionsMaxIds)
+            throw new IllegalArgumentException("Ids (" + ids.size() + ") must be at most " + solutionsMaxIds);
+        return serviceDaghub.getSolutions(ids);
     }
 
     @GetMapping("/query")
-    public Map<String, Object> query(@RequestParam(required = false, defaultValue = "") List<Integer> technologies,
+    public Object query(@RequestParam(required = false, defaultValue = "") List<Integer> technologies,
             @RequestParam(required = false, defaultValue = "") List<Integer> channels,
             @RequestParam(required = false, defaultValue = "") List<Integer> useCases,
             @RequestParam(required = false, defaultValue = "") List<Integer> organisationTypes,
             @RequestParam(required = false, defaultValue = "") List<Integer> stages,
             @RequestParam(required = false, defaultValue = "") List<Integer> tags,
             @RequestParam(required = false, defaultValue = "") List<String> countries) {
+        if (streaming)
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(serviceDaghub.queryStreaming(
+                    technologies, channels, useCases, organisationTypes, stages, tags, countries));
         return serviceDaghub.query(technologies, channels, useCases, organisationTypes, stages, tags, countries);
     }
 
+    @GetMapping("/search")
+    public Map<String, Object> search(@RequestParam String text,
+            @RequestParam(required = false, defaultValue = "") List<Integer> technologies,
+            @RequestParam(required = false, defaultValue = "") List<Integer> channels,
+            @RequestParam(required = false, defaultValue = "") List<Integer> useCases,
+            @RequestParam(required = false, defaultValue = "") List<Integer> organisationTypes,
+            @RequestParam(required = false, defaultValue = "") List<Integer> stages,
+            @RequestParam(required = false, defaultValue = "") List<Integer> tags,
+            @RequestParam(required = false, defaultValue = "") List<String> countries,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "20") int size) {
+        return serviceDaghub.search(text, technologies, channels, useCases, organisationTypes, stages, tags,
+                countries, page, size);
+    }
+
+    @GetMapping("/statistics")
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new TreeMap<>();
+        result.put("queryCache", serviceQueryCache.getStatistics());
+        result.put("queryLog", serviceLogQuery.getStatistics());
+        return result;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<?> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleException(Exception e) {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
@@ -0,0 +1,308 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.index;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import nl.wur.daghub.database.dto.DtoKeyValue;
+import nl.wur.daghub.database.dto.DtoStatistics;
+
+/**
+ * Columnar, immutable snapshot of the solution attributes used by the
+ * dashboard charts. A solution's position in the columns is its rank in
+ * {@code solutions}. Groups are emitted in the order the database sorts their
+ * descriptions, so the output matches the countSolutionBy* queries.
+ */
+public class AggregateIndex {
+    public enum Dimension {
+        ORGANISATION_TYPE, TECHNOLOGY, USE_CASE, COUNTRY
+    }
+
+    private static final String[] USERS = { "women", "youth", "shf" };
+
+    private final RoaringBitmap solutions;
+    private final int[] launch;
+    private final int[] organisationType;
+    private final int[][] technologies;
+    private final int[][] useCases;
+    private final int[] useCaseNumber;
+    private final int[][] countries;
+    private final double[] registeredUsers;
+    private final double[][] users;
+    private final Map<Dimension, List<String>> names = new EnumMap<>(Dimension.class);
+    private final Map<String, Integer> countryCodes = new HashMap<>();
+
+    private AggregateIndex(Builder builder) {
+        solutions = new RoaringBitmap();
+        builder.rows.keySet().forEach(solutions::add);
+        solutions.runOptimize();
+        int size = builder.rows.size();
+        launch = new int[size];
+        organisationType = new int[size];
+        technologies = new int[size][];
+        useCases = new int[size][];
+        useCaseNumber = new int[size];
+        countries = new int[size][];
+        registeredUsers = new double[size];
+        users = new double[USERS.length][size];
+        int position = 0;
+        for (Row row : builder.rows.values()) {
+            launch[position] = row.launch;
+            organisationType[position] = row.organisationType;
+            technologies[position] = toArray(row.technologies);
+            useCases[position] = row.useCases.stream().distinct().mapToInt(Integer::intValue).toArray();
+            useCaseNumber[position] = row.useCases.size();
+            countries[position] = toArray(row.countries);
+            registeredUsers[position] = row.registeredUsers;
+            for (int column = 0; column < USERS.length; column++)
+                users[column][position] = row.users[column];
+            position++;
+        }
+        builder.dictionaries.forEach((dimension, dictionary) -> names.put(dimension,
+                Collections.unmodifiableList(new ArrayList<>(dictionary.keySet()))));
+        countryCodes.putAll(builder.dictionaries.get(Dimension.COUNTRY));
+    }
+
+    public int size() {
+        return launch.length;
+    }
+
+    /**
+     * Histograms and statistics for the given solutions; when {@code idCountry}
+     * is not empty the country histogram is limited to those countries.
+     */
+    public Map<String, Object> aggregate(Iterable<Integer> ids, Iterable<String> idCountry) {
+        RoaringBitmap selected = new RoaringBitmap();
+        ids.forEach(selected::add);
+        selected.and(solutions);
+
+        boolean[] allowedCountries = null;
+        if (idCountry != null && idCountry.iterator().hasNext()) {
+            allowedCountries = new boolean[names.get(Dimension.COUNTRY).size()];
+            for (String country : idCountry) {
+                Integer code = countryCodes.get(country);
+                if (code != null)
+                    allowedCountries[code] = true;
+            }
+        }
+
+        int[] byOrganisationType = new int[names.get(Dimension.ORGANISATION_TYPE).size()];
+        int[] byTechnology = new int[names.get(Dimension.TECHNOLOGY).size()];
+        int[] byUseCase = new int[names.get(Dimension.USE_CASE).size()];
+        int[] byCountry = new int[names.get(Dimension.COUNTRY).size()];
+        Map<Integer, Integer> byLaunch = new TreeMap<>();
+        Map<Integer, Integer> byUseCaseNumber = new TreeMap<>();
+        UsersAccumulator[] accumulators = new UsersAccumulator[USERS.length];
+        for (int column = 0; column < USERS.length; column++)
+            accumulators[column] = new UsersAccumulator(users[column]);
+
+        for (int id : selected) {
+            int position = solutions.rank(id) - 1;
+            byLaunch.merge(launch[position], 1, Integer::sum);
+            if (organisationType[position] >= 0)
+                byOrganisationType[organisationType[position]]++;
+            for (int code : technologies[position])
+                byTechnology[code]++;
+            for (int code : useCases[position])
+                byUseCase[code]++;
+            if (useCaseNumber[position] > 0)
+                byUseCaseNumber.merge(useCaseNumber[position], 1, Integer::sum);
+            for (int code : countries[position])
+                if (allowedCountries == null || allowedCountries[code])
+                    byCountry[code]++;
+            for (UsersAccumulator accumulator : accumulators)
+                accumulator.add(position);
+        }
+
+        Map<String, Object> result = new TreeMap<>();
+        result.put("countSolutionByCountry", toKeyValues(Dimension.COUNTRY, byCountry));
+        result.put("countSolutionByLaunch", toKeyValues(byLaunch));
+        result.put("countSolutionByOrganisationType", toKeyValues(Dimension.ORGANISATION_TYPE, byOrganisationType));
+        result.put("countSolutionByTechnology", toKeyValues(Dimension.TECHNOLOGY, byTechnology));
+        result.put("countSolutionByUseCase", toKeyValues(Dimension.USE_CASE, byUseCase));
+        result.put("countSolutionByUseCaseNumber", toKeyValues(byUseCaseNumber));
+        List<DtoStatistics> statistics = new ArrayList<>();
+        for (int column = 0; column < USERS.length; column++)
+            accumulators[column].addTo(statistics, USERS[column]);
+        result.put("statistics", statistics);
+        return result;
+    }
+
+    private List<DtoKeyValue<String, Integer>> toKeyValues(Dimension dimension, int[] counts) {
+        List<DtoKeyValue<String, Integer>> result = new ArrayList<>();
+        List<String> dictionary = names.get(dimension);
+        for (int code = 0; code < counts.length; code++)
+            if (counts[code] > 0)
+                result.add(new KeyValue<>(dictionary.get(code), counts[code]));
+        return result;
+    }
+
+    private static List<DtoKeyValue<Integer, Integer>> toKeyValues(Map<Integer, Integer> counts) {
+        List<DtoKeyValue<Integer, Integer>> result = new ArrayList<>();
+        counts.forEach((key, value) -> result.add(new KeyValue<>(key, value)));
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Double toDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    // same rows as RepositorySolution.getStatistics: min, avg and max over the non-null users
+    private class UsersAccumulator {
+        private final double[] column;
+        private int min = -1;
+        private int max = -1;
+        private long count;
+        private long sum;
+        private long countRegistered;
+        private long sumRegistered;
+
+        private UsersAccumulator(double[] column) {
+            this.column = column;
+        }
+
+        private void add(int position) {
+            double value = column[position];
+            if (Double.isNaN(value))
+                return;
+            if (min < 0 || value < column[min])
+                min = position;
+            if (max < 0 || value > column[max])
+                max = position;
+            count++;
+            sum += (long) value;
+            if (!Double.isNaN(registeredUsers[position])) {
+                countRegistered++;
+                sumRegistered += (long) registeredUsers[position];
+            }
+        }
+
+        private void addTo(List<DtoStatistics> statistics, String label) {
+            if (min >= 0)
+                statistics.add(new Statistics(label, "min", toDouble(registeredUsers[min]), column[min]));
+            statistics.add(new Statistics(label, "avg", average(sumRegistered, countRegistered), average(sum, count)));
+            if (max >= 0)
+                statistics.add(new Statistics(label, "max", toDouble(registeredUsers[max]), column[max]));
+        }
+
+        private Double average(long total, long number) {
+            return number == 0 ? null
+                    : BigDecimal.valueOf(total).divide(BigDecimal.valueOf(number), 3, RoundingMode.HALF_UP)
+                            .doubleValue();
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final Map<Integer, Row> rows = new TreeMap<>();
+        private final Map<Dimension, Map<String, Integer>> dictionaries = new EnumMap<>(Dimension.class);
+
+        private Builder() {
+            for (Dimension dimension : Dimension.values())
+                dictionaries.put(dimension, new LinkedHashMap<>());
+        }
+
+        /**
+         * Registers a group in database order; groups must be registered before
+         * the solutions referring to them.
+         */
+        public Builder name(Dimension dimension, String name) {
+            code(dimension, name);
+            return this;
+        }
+
+        public Builder solution(int id, int launch, String organisationType, Integer registeredUsers,
+                Integer womenUsers, Integer youthUsers, Integer shfUsers) {
+            Row row = new Row();
+            row.launch = launch;
+            row.organisationType = code(Dimension.ORGANISATION_TYPE, organisationType);
+            row.registeredUsers = registeredUsers == null ? Double.NaN : registeredUsers;
+            row.users = new double[] { womenUsers == null ? Double.NaN : womenUsers,
+                    youthUsers == null ? Double.NaN : youthUsers, shfUsers == null ? Double.NaN : shfUsers };
+            rows.put(id, row);
+            return this;
+        }
+
+        public Builder technology(int solution, String technology) {
+            Row row = rows.get(solution);
+            if (row != null)
+                row.technologies.add(code(Dimension.TECHNOLOGY, technology));
+            return this;
+        }
+
+        // one call per distinct use case of the solution
+        public Builder useCase(int solution, String useCase) {
+            Row row = rows.get(solution);
+            if (row != null)
+                row.useCases.add(code(Dimension.USE_CASE, useCase));
+            return this;
+        }
+
+        public Builder country(int solution, String country) {
+            Row row = rows.get(solution);
+            if (row != null)
+                row.countries.add(code(Dimension.COUNTRY, country));
+            return this;
+        }
+
+        public AggregateIndex build() {
+            return new AggregateIndex(this);
+        }
+
+        private int code(Dimension dimension, String name) {
+            Map<String, Integer> dictionary = dictionaries.get(dimension);
+            return dictionary.computeIfAbsent(name, key -> dictionary.size());
+        }
+    }
+
+    private static class Row {
+        private int launch;
+        private int organisationType;
+        private double registeredUsers;
+        private double[] users;
+        private final List<Integer> technologies = new ArrayList<>();
+        private final List<Integer> useCases = new ArrayList<>();
+        private final List<Integer> countries = new ArrayList<>();
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import lombok.Getter;
+
+/**
+ * Immutable snapshot of the dashboard filter: per facet value, the bitmap of
+ * visible, non-removed solutions having at least one LMIC country.
+ */
+public class FacetIndex {
+    public enum Facet {
+        TECHNOLOGY, CHANNEL, USE_CASE, ORGANISATION_TYPE, STAGE, TAG, COUNTRY
+    }
+
+    private final @Getter RoaringBitmap solutions;
+    private final Map<Facet, Map<Object, RoaringBitmap>> facets;
+
+    private FacetIndex(RoaringBitmap solutions, Map<Facet, Map<Object, RoaringBitmap>> facets) {
+        this.solutions = solutions;
+        this.facets = facets;
+        for (Map<Object, RoaringBitmap> values : facets.values()) {
+            values.values().forEach(bitmap -> {
+                bitmap.and(solutions);
+                bitmap.runOptimize();
+            });
+            values.values().removeIf(RoaringBitmap::isEmpty);
+        }
+        solutions.runOptimize();
+    }
+
+    public int size() {
+        return solutions.getCardinality();
+    }
+
+    /**
+     * Solutions matching every given facet; within a facet any of the given values
+     * matches. Facets with a null or empty list of values are not filtered on.
+     */
+    public RoaringBitmap filter(Map<Facet, ? extends Collection<?>> criteria) {
+        RoaringBitmap result = solutions.clone();
+        for (Map.Entry<Facet, ? extends Collection<?>> criterion : criteria.entrySet()) {
+            if (criterion.getValue() == null || criterion.getValue().isEmpty())
+                continue;
+            Map<Object, RoaringBitmap> values = facets.get(criterion.getKey());
+            List<RoaringBitmap> matches = new ArrayList<>();
+            for (Object value : criterion.getValue()) {
+                RoaringBitmap bitmap = values.get(value);
+                if (bitmap != null)
+                    matches.add(bitmap);
+            }
+            result.and(RoaringBitmap.or(matches.iterator()));
+            if (result.isEmpty())
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Copy-on-write update: the solutions in {@code changed} are dropped and the
+     * content of {@code additions} (loaded for those same solutions) is merged in.
+     */
+    public FacetIndex patch(RoaringBitmap changed, FacetIndex additions) {
+        RoaringBitmap patchedSolutions = RoaringBitmap.or(RoaringBitmap.andNot(solutions, changed),
+                additions.solutions);
+        Map<Facet, Map<Object, RoaringBitmap>> patchedFacets = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            Map<Object, RoaringBitmap> values = new HashMap<>();
+            facets.get(facet).forEach((value, bitmap) -> values.put(value, RoaringBitmap.andNot(bitmap, changed)));
+            additions.facets.get(facet).forEach((value, bitmap) -> values.merge(value, bitmap.clone(),
+                    (current, added) -> {
+                        current.or(added);
+                        return current;
+                    }));
+            patchedFacets.put(facet, values);
+        }
+        return new FacetIndex(patchedSolutions, patchedFacets);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final RoaringBitmap solutions = new RoaringBitmap();
+        private final Map<Facet, Map<Object, RoaringBitmap>> facets = new EnumMap<>(Facet.class);
+
+        private Builder() {
+            for (Facet facet : Facet.values())
+                facets.put(facet, new HashMap<>());
+        }
+
+        public Builder solution(int solution) {
+            solutions.add(solution);
+            return this;
+        }
+
+        public Builder value(Facet facet, Object value, int solution) {
+            facets.get(facet).computeIfAbsent(value, key -> new RoaringBitmap()).add(solution);
+            return this;
+        }
+
+        public FacetIndex build() {
+            return new FacetIndex(solutions, facets);
+        }
+    }
+}
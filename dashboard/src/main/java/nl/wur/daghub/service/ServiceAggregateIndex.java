@@ -0,0 +1,123 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.event.EventDataChanged;
+import nl.wur.daghub.index.AggregateIndex;
+import nl.wur.daghub.index.AggregateIndex.Dimension;
+
+@Slf4j
+@Service
+public class ServiceAggregateIndex {
+    private @Value("${daghub.aggregate.enabled:true}") boolean enabled;
+    private @PersistenceContext EntityManager em;
+    private volatile AggregateIndex index;
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public AggregateIndex getIndex() {
+        return index;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (enabled)
+            rebuild();
+    }
+
+    @Order(1)
+    @EventListener
+    public void onDataChanged(EventDataChanged event) {
+        if (!enabled)
+            return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("==> aggregate index " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        AggregateIndex.Builder builder = AggregateIndex.builder();
+        names(builder, Dimension.ORGANISATION_TYPE,
+                "SELECT DISTINCT description FROM organisation_types ORDER BY description");
+        names(builder, Dimension.TECHNOLOGY,
+                "SELECT DISTINCT description FROM technologies ORDER BY description");
+        names(builder, Dimension.USE_CASE,
+                "SELECT DISTINCT description FROM use_cases ORDER BY description");
+        names(builder, Dimension.COUNTRY, "SELECT id FROM countries WHERE lmic = true ORDER BY id");
+
+        for (Object[] row : (List<Object[]>) em.createNativeQuery("SELECT s.id, s.launch, ot.description,"
+                + " s.registeredusers, s.womenusers, s.youthusers, s.shfusers"
+                + " FROM solutions s"
+                + " LEFT JOIN organisations o       ON o.id = s.organisation_id"
+                + " LEFT JOIN organisation_types ot ON ot.id = o.organisationtype_id"
+                + " WHERE s.dateremoved IS NULL").getResultList())
+            builder.solution((Integer) row[0], (Integer) row[1], (String) row[2], (Integer) row[3],
+                    (Integer) row[4], (Integer) row[5], (Integer) row[6]);
+        for (Object[] row : (List<Object[]>) em.createNativeQuery("SELECT tis.solution_id, t.description"
+                + " FROM technologies_in_solutions tis"
+                + " LEFT JOIN technologies t ON t.id = tis.technology_id").getResultList())
+            builder.technology((Integer) row[0], (String) row[1]);
+        for (Object[] row : (List<Object[]>) em.createNativeQuery("SELECT DISTINCT sucis.solution_id, suc.usecase_id,"
+                + " uc.description"
+                + " FROM sub_use_cases_in_solutions sucis"
+                + " LEFT JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id"
+                + " LEFT JOIN use_cases uc      ON uc.id = suc.usecase_id").getResultList())
+            builder.useCase((Integer) row[0], (String) row[2]);
+        for (Object[] row : (List<Object[]>) em.createNativeQuery("SELECT cis.solution_id, cis.country_id"
+                + " FROM countries_in_solutions cis"
+                + " JOIN countries c ON c.id = cis.country_id"
+                + " WHERE c.lmic = true").getResultList())
+            builder.country((Integer) row[0], (String) row[1]);
+
+        index = builder.build();
+        log.info("==> aggregate index " + index.size() + " solutions in " + (System.currentTimeMillis() - start)
+                + " ms");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void names(AggregateIndex.Builder builder, Dimension dimension, String query) {
+        for (Object name : em.createNativeQuery(query).getResultList())
+            builder.name(dimension, (String) name);
+    }
+}
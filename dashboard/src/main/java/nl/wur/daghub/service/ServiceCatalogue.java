@@ -0,0 +1,118 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.database.repository.RepositoryCountryRegion;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.event.EventDataChanged;
+
+/**
+ * The lookup lists of /api/find, serialized once. The ETag is derived from the
+ * content, so it only changes when a list really changes.
+ */
+@Slf4j
+@Service
+public class ServiceCatalogue {
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private byte[] json;
+        private String etag;
+    }
+
+    private RepositorySolution repoSolution;
+    private RepositoryCountryRegion repoCountryRegion;
+    private ObjectMapper mapper;
+    private volatile Map<String, Entry> entries = Map.of();
+
+    public ServiceCatalogue(RepositorySolution repoSolution, RepositoryCountryRegion repoCountryRegion,
+            ObjectMapper mapper) {
+        this.repoSolution = repoSolution;
+        this.repoCountryRegion = repoCountryRegion;
+        this.mapper = mapper;
+    }
+
+    // null when the request is not a lookup list or the catalogue is not loaded yet
+    public Entry get(String request) {
+        return entries.get(request);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    @Order(1)
+    @EventListener
+    public void onDataChanged(EventDataChanged event) {
+        refresh();
+    }
+
+    // the reference tables themselves are not covered by the data version
+    @Scheduled(initialDelayString = "${daghub.catalogue.refresh:3600000}",
+            fixedDelayString = "${daghub.catalogue.refresh:3600000}")
+    public synchronized void refresh() {
+        try {
+            Map<String, Entry> catalogue = new LinkedHashMap<>();
+            put(catalogue, "country", repoSolution::findCountry);
+            put(catalogue, "countryRegion", repoCountryRegion::findAll);
+            put(catalogue, "organisationType", repoSolution::findOrganisationType);
+            put(catalogue, "sector", repoSolution::findSector);
+            put(catalogue, "stage", repoSolution::findBusinessGrowthStage);
+            put(catalogue, "tag", repoSolution::findTag);
+            put(catalogue, "technology", repoSolution::findTechnology);
+            put(catalogue, "channel", repoSolution::findChannel);
+            put(catalogue, "useCase", repoSolution::findUseCase);
+            entries = Map.copyOf(catalogue);
+            log.info("==> catalogue " + catalogue.keySet());
+        } catch (RuntimeException | JsonProcessingException e) {
+            log.error("==> catalogue " + e.getMessage());
+        }
+    }
+
+    private void put(Map<String, Entry> catalogue, String request, Supplier<Object> supplier)
+            throws JsonProcessingException {
+        byte[] json = mapper.writeValueAsBytes(supplier.get());
+        catalogue.put(request, new Entry(json, "\"" + DigestUtils.md5DigestAsHex(json) + "\""));
+    }
+}
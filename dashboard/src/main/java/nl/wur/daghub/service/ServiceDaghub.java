@@ -25,9 +25,16 @@
 package nl.wur.daghub.service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -36,53 +43,92 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import nl.wur.daghub.database.domain.LogQuery;
 import nl.wur.daghub.database.domain.Solution;
+import nl.wur.daghub.database.dto.DtoSearchSolution;
+import nl.wur.daghub.database.dto.DtoSolutionTable;
 import nl.wur.daghub.database.dto.DtoStatistics;
 import nl.wur.daghub.database.repository.RepositoryCountryRegion;
-import nl.wur.daghub.database.repository.RepositoryLogQuery;
 import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.SqlArray;
 import nl.wur.daghub.exception.RequestNotFoundException;
 
 @Slf4j
 @Service
 public class ServiceDaghub {
+    private static final Set<String> FIND_REQUESTS = Set.of("url", "solution", "country", "countryRegion",
+            "organisationType", "sector", "stage", "tag", "technology", "channel", "useCase");
+    private static final List<String> FILTERS = List.of("technologies", "channels", "useCases",
+            "organisationTypes", "stages", "tags", "countries");
+
     private @Value("${daghub.url}") String url;
-    private RepositoryLogQuery repoLogQuery;
+    private @Value("${daghub.search.max-size:100}") int searchMaxSize;
+    private ServiceLogQuery serviceLogQuery;
     private RepositorySolution repoSolution;
     private RepositoryCountryRegion repoCountryRegion;
+    private ServiceFacetIndex serviceFacetIndex;
+    private ServiceAggregateIndex serviceAggregateIndex;
+    private ServiceQueryCache serviceQueryCache;
+    private ServiceQueryWriter serviceQueryWriter;
+    private TransactionTemplate transactionTemplate;
+    private MeterRegistry meterRegistry;
     private @PersistenceContext EntityManager em;
 
-    public ServiceDaghub(RepositoryLogQuery repoLogQuery, RepositorySolution repoSolution,
-            RepositoryCountryRegion repoCountryRegion) {
-        this.repoLogQuery = repoLogQuery;
+    public ServiceDaghub(ServiceLogQuery serviceLogQuery, RepositorySolution repoSolution,
+            RepositoryCountryRegion repoCountryRegion, ServiceFacetIndex serviceFacetIndex,
+            ServiceAggregateIndex serviceAggregateIndex, ServiceQueryCache serviceQueryCache,
+            ServiceQueryWriter serviceQueryWriter, PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.serviceLogQuery = serviceLogQuery;
         this.repoSolution = repoSolution;
         this.repoCountryRegion = repoCountryRegion;
+        this.serviceFacetIndex = serviceFacetIndex;
+        this.serviceAggregateIndex = serviceAggregateIndex;
+        this.serviceQueryCache = serviceQueryCache;
+        this.serviceQueryWriter = serviceQueryWriter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
     }
 
-    @SuppressWarnings("unchecked")
     public Object find(String request, Integer id) {
         log.info("==> find " + request + " " + id);
+        return timeFind(request, "database", () -> findRequest(request, id));
+    }
+
+    // the lookup lists are served from the catalogue, the other requests from the database
+    public <T> T timeFind(String request, String source, Supplier<T> lookup) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return lookup.get();
+        } finally {
+            sample.stop(Timer.builder("daghub.find")
+                    .description("Lookups of /api/find by request")
+                    .tag("request", FIND_REQUESTS.contains(request) ? request : "unknown")
+                    .tag("source", source)
+                    .register(meterRegistry));
+        }
+    }
+
+    private Object findRequest(String request, Integer id) {
         switch (request) {
             case "url":
                 return ResponseEntity.status(HttpStatus.OK).body(url);
             case "solution":
                 if (id == null)
                     throw new RequestNotFoundException("Solution id should be provided");
-                if (repoSolution.findById(id).isPresent()) {
-                    Solution solution = repoSolution.findById(id).get();
-                    Map<String, Object> result = new ObjectMapper().convertValue(solution, Map.class);
-                    result.put("channels", repoSolution.findChannelsById(id));
-                    result.put("countries", repoSolution.findCountriesById(id));
-                    result.put("languages", repoSolution.findLanguagesById(id));
-                    result.put("sectors", repoSolution.findSectorsById(id));
-                    result.put("technologies", repoSolution.findTechnologiesById(id));
-                    return result;
-                } else
+                Map<String, Object> result = getSolutions(List.of(id)).get(id);
+                if (result == null)
                     throw new RequestNotFoundException("Solution " + id + " does not exist");
+                return result;
             case "country":
                 return repoSolution.findCountry();
             case "countryRegion":
@@ -106,14 +152,141 @@ public class ServiceDaghub {
         }
     }
 
+    /**
+     * Solution details in the order of the given ids, unknown ids are skipped.
+     * The number of queries does not depend on the number of solutions: the
+     * entities are loaded with the graph Solution.detail, their lazy collections
+     * with one query each while serialised, and every list with one IN query.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<Integer, Map<String, Object>> getSolutions(List<Integer> ids) {
+        log.info("==> solutions " + ids);
+        Map<Integer, Map<String, Object>> result = new LinkedHashMap<>();
+        if (ids == null || ids.isEmpty())
+            return result;
+        Set<Integer> idsSolution = new LinkedHashSet<>(ids);
+        Map<Integer, Map<String, Object>> solutions = new HashMap<>();
+        ObjectMapper mapper = new ObjectMapper();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Solution solution : repoSolution.findDetailByIdIn(idsSolution))
+                solutions.put(solution.getId(), mapper.convertValue(solution, Map.class));
+        });
+        for (Integer id : idsSolution) {
+            Map<String, Object> mapSolution = solutions.get(id);
+            if (mapSolution == null)
+                continue;
+            mapSolution.put("channels", new ArrayList<>());
+            mapSolution.put("countries", new ArrayList<>());
+            mapSolution.put("languages", new ArrayList<>());
+            mapSolution.put("sectors", new ArrayList<>());
+            mapSolution.put("technologies", new ArrayList<>());
+            result.put(id, mapSolution);
+        }
+        if (result.isEmpty())
+            return result;
+        String idsFound = SqlArray.of(result.keySet());
+        putTables(result, "channels", repoSolution.findChannelsByIds(idsFound));
+        putTables(result, "countries", repoSolution.findCountriesByIds(idsFound));
+        putTables(result, "languages", repoSolution.findLanguagesByIds(idsFound));
+        putTables(result, "sectors", repoSolution.findSectorsByIds(idsFound));
+        putTables(result, "technologies", repoSolution.findTechnologiesByIds(idsFound));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putTables(Map<Integer, Map<String, Object>> solutions, String key,
+            List<? extends DtoSolutionTable<?>> tables) {
+        for (DtoSolutionTable<?> table : tables) {
+            Map<String, Object> mapTable = new LinkedHashMap<>();
+            mapTable.put("id", table.getId());
+            mapTable.put("description", table.getDescription());
+            ((List<Map<String, Object>>) solutions.get(table.getSolution()).get(key)).add(mapTable);
+        }
+    }
+
     public Map<String, Object> query(List<Integer> idTech, List<Integer> idChannel, List<Integer> idUseCase,
             List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag, List<String> idCountry) {
         LogQuery logQuery = new LogQuery(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry);
-        repoLogQuery.save(logQuery);
+        serviceLogQuery.log(logQuery);
+        log.info("==> query " + logQuery.toString().replaceFirst("LogQuery", ""));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, Object> reply = serviceQueryCache.get(
+                ServiceQueryCache.key("query", idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry),
+                () -> getQueryResult(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry, true));
+        sample.stop(queryTimer("daghub.query", "Replies of /api/query, cached or not", "query",
+                filters(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry)));
+        return reply;
+    }
+
+    /**
+     * Same reply as query, but the solutions are read in batches and written
+     * while the response is sent. Only the aggregates and the filtered ids are
+     * kept (and cached); daghub.query.streaming selects one of both modes.
+     */
+    public StreamingResponseBody queryStreaming(List<Integer> idTech, List<Integer> idChannel,
+            List<Integer> idUseCase, List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag,
+            List<String> idCountry) {
+        LogQuery logQuery = new LogQuery(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry);
+        serviceLogQuery.log(logQuery);
         log.info("==> query " + logQuery.toString().replaceFirst("LogQuery", ""));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, Object> reply = serviceQueryCache.get(
+                ServiceQueryCache.key("streaming", idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry),
+                () -> getQueryResult(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry, false));
+        sample.stop(queryTimer("daghub.query", "Replies of /api/query, cached or not", "streaming",
+                filters(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry)));
+        return outputStream -> serviceQueryWriter.write(outputStream, reply);
+    }
+
+    /**
+     * Solutions matching the prefixes of all the words of a text in their names, url
+     * domains, descriptions and translations or those of their organisation, best
+     * ranked first and within the same filters as query. Pages are numbered from 0,
+     * their size is capped at daghub.search.max-size; a negative page or a size
+     * below 1 is rejected.
+     */
+    public Map<String, Object> search(String text, List<Integer> idTech, List<Integer> idChannel,
+            List<Integer> idUseCase, List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag,
+            List<String> idCountry, int page, int size) {
+        log.info("==> search " + text + " page " + page + " size " + size);
+        if (page < 0 || size < 1)
+            throw new IllegalArgumentException("Page (" + page + ") must be >= 0 and size (" + size + ") >= 1");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int pageSize = Math.min(size, searchMaxSize);
+        List<DtoSearchSolution> solutions = List.of();
+        long total = 0;
+        if (text != null && !text.isBlank()) {
+            solutions = repoSolution.searchSolutions(text, SqlArray.of(idTech), SqlArray.of(idChannel),
+                    SqlArray.of(idUseCase), SqlArray.of(idOrgType), SqlArray.of(idStage), SqlArray.of(idTag),
+                    SqlArray.of(idCountry), pageSize, (long) page * pageSize);
+            // the total comes with the rows of the page, a page past the last one has to count the matches
+            if (!solutions.isEmpty())
+                total = solutions.get(0).getTotal();
+            else if (page > 0)
+                total = repoSolution.countSearchSolutions(text, SqlArray.of(idTech), SqlArray.of(idChannel),
+                        SqlArray.of(idUseCase), SqlArray.of(idOrgType), SqlArray.of(idStage), SqlArray.of(idTag),
+                        SqlArray.of(idCountry));
+        }
+        Map<String, Object> result = new TreeMap<>();
+        result.put("page", page);
+        result.put("size", pageSize);
+        result.put("total", total);
+        result.put("solutions", solutions);
+        sample.stop(queryTimer("daghub.search", "Replies of /api/search", "database",
+                filters(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry)));
+        return result;
+    }
+
+    private Map<String, Object> getQueryResult(List<Integer> idTech, List<Integer> idChannel,
+            List<Integer> idUseCase, List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag,
+            List<String> idCountry, boolean withSolutions) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         Map<String, Object> result;
-        Iterable<Integer> solutions = repoSolution.filterSolutions(idTech, idChannel, idUseCase, idOrgType, idStage,
-                idTag, idCountry);
+        boolean index = serviceFacetIndex.isReady();
+        Iterable<Integer> solutions = index
+                ? serviceFacetIndex.filterSolutions(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry)
+                : repoSolution.filterSolutions(SqlArray.of(idTech), SqlArray.of(idChannel), SqlArray.of(idUseCase),
+                        SqlArray.of(idOrgType), SqlArray.of(idStage), SqlArray.of(idTag), SqlArray.of(idCountry));
         log.info("==> filter " + solutions);
         if (!solutions.iterator().hasNext()) {
             result = new TreeMap<>();
@@ -126,32 +299,68 @@ public class ServiceDaghub {
             result.put("statistics", null);
             result.put("solutions", null);
         } else
-            result = getQueryReply(idCountry, solutions);
+            result = getQueryReply(idCountry, solutions, withSolutions);
+        sample.stop(queryTimer("daghub.query.result", "Replies of /api/query computed on a cache miss",
+                index ? "index" : "database",
+                filters(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry)));
         return result;
     }
 
+    private Timer queryTimer(String name, String description, String type, String filters) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("type", type)
+                .tag("filters", filters)
+                .register(meterRegistry);
+    }
+
+    // the filtered facets, e.g. "technologies,countries": at most 128 tag values
+    private static String filters(List<Integer> idTech, List<Integer> idChannel, List<Integer> idUseCase,
+            List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag, List<String> idCountry) {
+        List<List<?>> lists = Arrays.asList(idTech, idChannel, idUseCase, idOrgType, idStage, idTag, idCountry);
+        StringJoiner filters = new StringJoiner(",").setEmptyValue("none");
+        for (int i = 0; i < FILTERS.size(); i++)
+            if (lists.get(i) != null && !lists.get(i).isEmpty())
+                filters.add(FILTERS.get(i));
+        return filters.toString();
+    }
+
     @SuppressWarnings("unchecked")
-    private Map<String, Object> getQueryReply(Iterable<String> idsCountry, Iterable<Integer> idsSolution) {
-        Map<String, Object> result = new TreeMap<>();
-        result.put("countSolutionByCountry", repoSolution.countSolutionByCountry(idsCountry, idsSolution));
-        result.put("countSolutionByLaunch", repoSolution.countSolutionByLaunch(idsSolution));
-        result.put("countSolutionByOrganisationType", repoSolution.countSolutionByOrganisationType(idsSolution));
-        result.put("countSolutionByTechnology", repoSolution.countSolutionByTechnology(idsSolution));
-        result.put("countSolutionByUseCase", repoSolution.countSolutionByUseCase(idsSolution));
-        result.put("countSolutionByUseCaseNumber", repoSolution.countSolutionByUseCaseNumber(idsSolution));
-
-        List<DtoStatistics> statistics = repoSolution.getStatistics(idsSolution, "women");
-        statistics.addAll(repoSolution.getStatistics(idsSolution, "youth"));
-        statistics.addAll(repoSolution.getStatistics(idsSolution, "shf"));
-        result.put("statistics", statistics);
+    private Map<String, Object> getQueryReply(Iterable<String> idsCountry, Iterable<Integer> idsSolution,
+            boolean withSolutions) {
+        Map<String, Object> result;
+        if (serviceAggregateIndex.isReady())
+            result = serviceAggregateIndex.getIndex().aggregate(idsSolution, idsCountry);
+        else {
+            String solutions = SqlArray.of(idsSolution);
+            result = new TreeMap<>();
+            result.put("countSolutionByCountry",
+                    repoSolution.countSolutionByCountry(SqlArray.of(idsCountry), solutions));
+            result.put("countSolutionByLaunch", repoSolution.countSolutionByLaunch(solutions));
+            result.put("countSolutionByOrganisationType", repoSolution.countSolutionByOrganisationType(solutions));
+            result.put("countSolutionByTechnology", repoSolution.countSolutionByTechnology(solutions));
+            result.put("countSolutionByUseCase", repoSolution.countSolutionByUseCase(solutions));
+            result.put("countSolutionByUseCaseNumber", repoSolution.countSolutionByUseCaseNumber(solutions));
+
+            List<DtoStatistics> statistics = repoSolution.getStatistics(solutions, "women");
+            statistics.addAll(repoSolution.getStatistics(solutions, "youth"));
+            statistics.addAll(repoSolution.getStatistics(solutions, "shf"));
+            result.put("statistics", statistics);
+        }
+        if (!withSolutions) {
+            List<Integer> ids = new ArrayList<>();
+            idsSolution.forEach(ids::add);
+            result.put("solutions", ids);
+            return result;
+        }
 
         Map<Integer, Map<String, Object>> mapSolutions = new TreeMap<>();
 
         List<Object[]> solutions = em.createNativeQuery("SELECT s.id, s.name, s.description, s.url, o.name AS orgname"
                 + " FROM solutions s"
                 + " LEFT JOIN organisations o ON o.id = s.organisation_id"
-                + " WHERE s.dateremoved IS NULL AND s.id IN :solutions ORDER BY s.id")
-                .setParameter("solutions", idsSolution).getResultList();
+                + " WHERE s.dateremoved IS NULL AND s.id = ANY(CAST(:solutions AS int[])) ORDER BY s.id")
+                .setParameter("solutions", SqlArray.of(idsSolution)).getResultList();
         for (Object[] solution : solutions) {
             Map<String, Object> mapSolution = new TreeMap<>();
             mapSolution.put("id", solution[0]);
@@ -166,9 +375,9 @@ public class ServiceDaghub {
         List<Object[]> translations = em.createNativeQuery("SELECT t.solution_id, l.description, t.translation"
                 + " FROM solution_translations t"
                 + " LEFT JOIN languages l ON l.id = t.language_id"
-                + " WHERE  t.solution_id IN :solutions"
+                + " WHERE  t.solution_id = ANY(CAST(:solutions AS int[]))"
                 + " ORDER BY t.solution_id")
-                .setParameter("solutions", idsSolution).getResultList();
+                .setParameter("solutions", SqlArray.of(idsSolution)).getResultList();
         for (Object[] translation : translations) {
             int id = (int) translation[0];
             mapSolutions.get(id).putIfAbsent("translations", new ArrayList<Map<String, Object>>());
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.daghub.event.EventDataChanged;
+
+/**
+ * The dashboard only reads; solutions are maintained by the dataentry
+ * application. Changes are detected by polling the high-water mark of the
+ * change log the triggers of every write fill (see data_version.sql); the
+ * transactions below the mark have completed, so the solutions changed between
+ * the mark seen last and the current one are complete, also for writes outside
+ * dataentry. A later transaction is picked up once the mark has passed it.
+ */
+@Slf4j
+@Service
+public class ServiceDataVersion {
+    private RepositorySolution repoSolution;
+    private ApplicationEventPublisher publisher;
+    private @Value("${daghub.facets.refresh-limit:5000}") int refreshLimit;
+    private volatile Long version;
+
+    public ServiceDataVersion(RepositorySolution repoSolution, ApplicationEventPublisher publisher) {
+        this.repoSolution = repoSolution;
+        this.publisher = publisher;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        version = repoSolution.findDataVersion();
+    }
+
+    @Scheduled(initialDelayString = "${daghub.data.poll:30000}", fixedDelayString = "${daghub.data.poll:30000}")
+    public void poll() {
+        Long previous = version;
+        long current;
+        List<Integer> changed;
+        try {
+            current = repoSolution.findDataVersion();
+            if (previous != null && previous == current)
+                return;
+            changed = previous == null ? null : repoSolution.findIdsChanged(previous, current);
+        } catch (RuntimeException e) {
+            log.warn("==> data version " + e.getMessage());
+            return;
+        }
+        version = current;
+        // the mark also moves for the transactions that did not write solutions
+        if (changed != null && changed.isEmpty())
+            return;
+        log.info("==> data changed " + previous + " -> " + current);
+        if (changed != null)
+            refreshFacets(changed);
+        publisher.publishEvent(new EventDataChanged(previous, changed));
+    }
+
+    // dataentry refreshes the read model of the solutions it writes, this also covers the changes made outside it
+    // (e.g. visibility set in the database) before the indexes and caches reload
+    private void refreshFacets(List<Integer> changed) {
+        try {
+            int refreshed = changed.size() > refreshLimit ? repoSolution.refreshAllFacets()
+                    : repoSolution.refreshFacets(SqlArray.of(changed));
+            log.info("==> solution facets refreshed " + changed.size() + " changed, " + refreshed + " rows");
+        } catch (RuntimeException e) {
+            log.warn("==> solution facets " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.daghub.event.EventDataChanged;
+import nl.wur.daghub.index.FacetIndex;
+import nl.wur.daghub.index.FacetIndex.Facet;
+
+@Slf4j
+@Service
+public class ServiceFacetIndex {
+    // the read model holds the visible, non-removed solutions with their facets as arrays; the solutions without
+    // LMIC countries are not shown on the dashboard
+    private static final String FACETS = " WHERE cardinality(f.countries) > 0"
+            + " AND (:all OR f.solution_id = ANY(CAST(:solutions AS int[])))";
+    private static final Map<Facet, String> QUERIES = new EnumMap<>(Facet.class);
+    static {
+        QUERIES.put(Facet.TECHNOLOGY, "SELECT u.technology, f.solution_id FROM solution_facets f"
+                + " CROSS JOIN unnest(f.technologies) AS u(technology)" + FACETS);
+        QUERIES.put(Facet.CHANNEL, "SELECT u.channel, f.solution_id FROM solution_facets f"
+                + " CROSS JOIN unnest(f.channels) AS u(channel)" + FACETS);
+        QUERIES.put(Facet.USE_CASE, "SELECT u.usecase, f.solution_id FROM solution_facets f"
+                + " CROSS JOIN unnest(f.usecases) AS u(usecase)" + FACETS);
+        QUERIES.put(Facet.ORGANISATION_TYPE, "SELECT f.organisationtype_id, f.solution_id FROM solution_facets f"
+                + FACETS);
+        QUERIES.put(Facet.STAGE, "SELECT f.business_growth_stage_id, f.solution_id FROM solution_facets f"
+                + FACETS);
+        QUERIES.put(Facet.TAG, "SELECT u.tag, f.solution_id FROM solution_facets f"
+                + " CROSS JOIN unnest(f.tags) AS u(tag)" + FACETS);
+        QUERIES.put(Facet.COUNTRY, "SELECT u.country, f.solution_id FROM solution_facets f"
+                + " CROSS JOIN unnest(f.countries) AS u(country)" + FACETS);
+    }
+    private static final String QUERY_SOLUTIONS = "SELECT f.solution_id FROM solution_facets f" + FACETS;
+
+    private @Value("${daghub.index.enabled:true}") boolean enabled;
+    private @Value("${daghub.index.patch-limit:500}") int patchLimit;
+    private @PersistenceContext EntityManager em;
+    private volatile FacetIndex index;
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    public FacetIndex getIndex() {
+        return index;
+    }
+
+    public List<Integer> filterSolutions(List<Integer> idTech, List<Integer> idChannel, List<Integer> idUseCase,
+            List<Integer> idOrgType, List<Integer> idStage, List<Integer> idTag, List<String> idCountry) {
+        Map<Facet, Collection<?>> criteria = new EnumMap<>(Facet.class);
+        criteria.put(Facet.TECHNOLOGY, idTech);
+        criteria.put(Facet.CHANNEL, idChannel);
+        criteria.put(Facet.USE_CASE, idUseCase);
+        criteria.put(Facet.ORGANISATION_TYPE, idOrgType);
+        criteria.put(Facet.STAGE, idStage);
+        criteria.put(Facet.TAG, idTag);
+        criteria.put(Facet.COUNTRY, idCountry);
+        RoaringBitmap result = index.filter(criteria);
+        return List.of(result.stream().boxed().toArray(Integer[]::new));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (enabled)
+            rebuild();
+    }
+
+    @Order(1)
+    @EventListener
+    public void onDataChanged(EventDataChanged event) {
+        if (!enabled)
+            return;
+        try {
+            List<Integer> changed = index == null ? null : event.getSolutions();
+            if (changed == null || changed.size() > patchLimit)
+                rebuild();
+            else if (!changed.isEmpty())
+                patch(changed);
+        } catch (RuntimeException e) {
+            // keep serving the previous snapshot, the next change triggers a new attempt
+            log.error("==> facet index " + e.getMessage());
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        index = load(null);
+        log.info("==> facet index " + index.size() + " solutions in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private synchronized void patch(List<Integer> changed) {
+        index = index.patch(RoaringBitmap.bitmapOf(changed.stream().mapToInt(Integer::intValue).toArray()),
+                load(changed));
+        log.info("==> facet index patched " + changed.size() + " solutions, " + index.size() + " solutions");
+    }
+
+    @SuppressWarnings("unchecked")
+    private FacetIndex load(List<Integer> solutions) {
+        FacetIndex.Builder builder = FacetIndex.builder();
+        for (Object id : bind(em.createNativeQuery(QUERY_SOLUTIONS), solutions).getResultList())
+            builder.solution(((Number) id).intValue());
+        for (Map.Entry<Facet, String> query : QUERIES.entrySet())
+            for (Object[] row : (List<Object[]>) bind(em.createNativeQuery(query.getValue()), solutions)
+                    .getResultList())
+                builder.value(query.getKey(), row[0], ((Number) row[1]).intValue());
+        return builder.build();
+    }
+
+    private Query bind(Query query, List<Integer> solutions) {
+        return query.setParameter("all", solutions == null)
+                .setParameter("solutions", SqlArray.of(solutions));
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.database.domain.LogQuery;
+
+/**
+ * Writes the query log in the background: requests only enqueue, a single
+ * writer inserts batches when batch-size entries are waiting or flush-interval
+ * has passed. When the queue stays full for offer-timeout the entry is dropped.
+ */
+@Slf4j
+@Service
+public class ServiceLogQuery {
+    private static final String INSERT = "INSERT INTO log_query"
+            + " (currenttime, technologies, channels, usecases, organisationtypes, stages, tags, countries)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private @Value("${daghub.log.query.batch-size:500}") int batchSize;
+    private @Value("${daghub.log.query.flush-interval:2s}") Duration flushInterval;
+    private @Value("${daghub.log.query.offer-timeout:5ms}") Duration offerTimeout;
+    private JdbcTemplate jdbcTemplate;
+    private BlockingQueue<LogQuery> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public ServiceLogQuery(JdbcTemplate jdbcTemplate, @Value("${daghub.log.query.capacity:10000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "log-query-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(flushInterval.toMillis() + 10000);
+        log.info("==> log query stopped " + getStatistics());
+    }
+
+    public void log(LogQuery logQuery) {
+        try {
+            if (queue.offer(logQuery, offerTimeout.toNanos(), TimeUnit.NANOSECONDS))
+                enqueued.incrementAndGet();
+            else
+                dropped.incrementAndGet();
+        } catch (InterruptedException e) {
+            dropped.incrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> result = new TreeMap<>();
+        result.put("queued", queue.size());
+        result.put("enqueuedCount", enqueued.get());
+        result.put("droppedCount", dropped.get());
+        result.put("writtenCount", written.get());
+        result.put("failedCount", failed.get());
+        return result;
+    }
+
+    private void run() {
+        List<LogQuery> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LogQuery first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null)
+                    continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + flushInterval.toNanos();
+                while (running && batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0)
+                        break;
+                    LogQuery next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null)
+                        batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<LogQuery> batch) {
+        if (batch.isEmpty())
+            return;
+        try {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, logQuery) -> {
+                statement.setString(1, logQuery.getCurrenttime());
+                statement.setString(2, logQuery.getTechnologies());
+                statement.setString(3, logQuery.getChannels());
+                statement.setString(4, logQuery.getUsecases());
+                statement.setString(5, logQuery.getOrganisationtypes());
+                statement.setString(6, logQuery.getStages());
+                statement.setString(7, logQuery.getTags());
+                statement.setString(8, logQuery.getCountries());
+            });
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            failed.addAndGet(batch.size());
+            log.error("==> log query " + batch.size() + " entries not written: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.event.EventDataChanged;
+
+/**
+ * Replies of /api/query keyed on the reply mode and the sorted, duplicate free
+ * filter lists, so that the same selection in another order shares an entry.
+ * The hits and misses are published as the cache metrics of "query".
+ */
+@Slf4j
+@Service
+public class ServiceQueryCache {
+    private Cache<List<List<?>>, Map<String, Object>> cache;
+
+    public ServiceQueryCache(@Value("${daghub.cache.query.maximum-size:1000}") long maximumSize,
+            @Value("${daghub.cache.query.expire-after-write:10m}") Duration expireAfterWrite,
+            MeterRegistry meterRegistry) {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "query");
+    }
+
+    // the modes cache replies of different shapes (with or without the solutions), they must not share an entry
+    public static List<List<?>> key(String mode, List<?>... filters) {
+        List<List<?>> key = new ArrayList<>(filters.length + 1);
+        key.add(List.of(mode));
+        for (List<?> filter : filters)
+            key.add(filter == null ? Collections.emptyList() : List.copyOf(new TreeSet<>(filter)));
+        return Collections.unmodifiableList(key);
+    }
+
+    public Map<String, Object> get(List<List<?>> key, Supplier<Map<String, Object>> loader) {
+        return cache.get(key, k -> loader.get());
+    }
+
+    // after the in-memory indexes have been refreshed for the same change
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onDataChanged(EventDataChanged event) {
+        log.info("==> query cache invalidated, " + cache.estimatedSize() + " entries");
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new TreeMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
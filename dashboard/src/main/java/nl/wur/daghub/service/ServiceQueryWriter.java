@@ -0,0 +1,180 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Writes a /api/query reply whose "solutions" entry holds the solution ids:
+ * the solutions are read fetch-size ids at a time (translations joined and
+ * ordered by solution) and each batch is written once it has been read, so
+ * no connection or transaction is held while a slow client takes the reply.
+ */
+@Service
+public class ServiceQueryWriter {
+    private static final String QUERY_SOLUTIONS = "SELECT s.id, s.name, s.description, s.url, o.name AS orgname,"
+            + " t.solution_id AS translated, l.description AS language, t.translation"
+            + " FROM solutions s"
+            + " LEFT JOIN organisations o          ON o.id = s.organisation_id"
+            + " LEFT JOIN solution_translations t  ON t.solution_id = s.id"
+            + " LEFT JOIN languages l              ON l.id = t.language_id"
+            + " WHERE s.dateremoved IS NULL AND s.id = ANY(?)"
+            + " ORDER BY s.id, t.language_id";
+
+    private int fetchSize;
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper mapper;
+
+    public ServiceQueryWriter(JdbcTemplate jdbcTemplate, ObjectMapper mapper,
+            @Value("${daghub.query.fetch-size:500}") int fetchSize) {
+        if (fetchSize <= 0)
+            throw new IllegalArgumentException("daghub.query.fetch-size (" + fetchSize + ") must be > 0");
+        this.jdbcTemplate = jdbcTemplate;
+        this.mapper = mapper;
+        this.fetchSize = fetchSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void write(OutputStream outputStream, Map<String, Object> reply) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, Object> entry : reply.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                if ("solutions".equals(entry.getKey()) && entry.getValue() != null)
+                    writeSolutions(generator, (List<Integer>) entry.getValue());
+                else
+                    generator.writeObject(entry.getValue());
+            }
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeSolutions(JsonGenerator generator, List<Integer> ids) throws IOException {
+        generator.writeStartArray();
+        SolutionWriter writer = new SolutionWriter(generator);
+        // batches of ascending ids keep the solutions ordered by id across the batches
+        List<Integer> sorted = ids.stream().sorted().collect(Collectors.toList());
+        for (int from = 0; from < sorted.size(); from += fetchSize) {
+            Integer[] batch = sorted.subList(from, Math.min(from + fetchSize, sorted.size())).toArray(Integer[]::new);
+            List<Row> rows = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(QUERY_SOLUTIONS);
+                statement.setArray(1, connection.createArrayOf("integer", batch));
+                return statement;
+            }, (resultSet, number) -> {
+                resultSet.getInt("translated");
+                boolean translated = !resultSet.wasNull();
+                return new Row(resultSet.getInt("id"), resultSet.getString("name"),
+                        resultSet.getString("description"), resultSet.getString("url"),
+                        resultSet.getString("orgname"), translated, resultSet.getString("language"),
+                        resultSet.getString("translation"));
+            });
+            for (Row row : rows)
+                writer.write(row);
+        }
+        writer.end();
+        generator.writeEndArray();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Row {
+        private final int id;
+        private final String name;
+        private final String description;
+        private final String url;
+        private final String orgname;
+        private final boolean translated;
+        private final String language;
+        private final String translation;
+    }
+
+    // rows arrive ordered by solution, one per translation; keys are written in the order of a TreeMap
+    private static class SolutionWriter {
+        private final JsonGenerator generator;
+        private Integer current;
+        private String url;
+        private boolean translations;
+
+        private SolutionWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        private void write(Row row) throws IOException {
+            if (current == null || current != row.getId()) {
+                end();
+                current = row.getId();
+                url = row.getUrl();
+                generator.writeStartObject();
+                generator.writeStringField("description", row.getDescription());
+                generator.writeNumberField("id", row.getId());
+                generator.writeStringField("name", row.getName());
+                generator.writeStringField("organisationname", row.getOrgname());
+                generator.writeFieldName("translations");
+            }
+            if (row.isTranslated()) {
+                if (!translations) {
+                    generator.writeStartArray();
+                    translations = true;
+                }
+                generator.writeStartObject();
+                generator.writeStringField("language", row.getLanguage());
+                generator.writeStringField("translation", row.getTranslation());
+                generator.writeEndObject();
+            }
+        }
+
+        private void end() throws IOException {
+            if (current == null)
+                return;
+            if (translations)
+                generator.writeEndArray();
+            else
+                generator.writeNull();
+            generator.writeStringField("url", url);
+            generator.writeEndObject();
+            current = null;
+            translations = false;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import nl.wur.daghub.database.dto.DtoKeyValue;
+import nl.wur.daghub.database.dto.DtoStatistics;
+import nl.wur.daghub.index.AggregateIndex;
+import nl.wur.daghub.index.AggregateIndex.Dimension;
+
+/**
+ * The aggregates must give the same rows as the countSolutionBy* and
+ * getStatistics queries of RepositorySolution.
+ */
+class AggregateIndexTests {
+
+    private AggregateIndex index() {
+        return AggregateIndex.builder()
+                .name(Dimension.ORGANISATION_TYPE, "Agribusiness").name(Dimension.ORGANISATION_TYPE, "NGO")
+                .name(Dimension.COUNTRY, "ABW").name(Dimension.COUNTRY, "KEN").name(Dimension.COUNTRY, "NLD")
+                .name(Dimension.USE_CASE, "Advisory").name(Dimension.USE_CASE, "Finance")
+                .name(Dimension.TECHNOLOGY, "AI").name(Dimension.TECHNOLOGY, "SMS")
+                .solution(1, 2010, "NGO", 100, 10, 1, null)
+                .solution(2, 2000, "Agribusiness", null, 30, 1, null)
+                .solution(3, 2010, "NGO", 50, null, 2, null)
+                .technology(1, "SMS").technology(2, "AI").technology(2, "SMS")
+                .useCase(1, "Advisory").useCase(1, "Finance").useCase(2, "Finance")
+                .country(1, "KEN").country(1, "NLD").country(2, "KEN").country(3, "ABW")
+                .build();
+    }
+
+    private String keyValues(Object keyValues) {
+        return ((List<?>) keyValues).stream().map(keyValue -> ((DtoKeyValue<?, ?>) keyValue).getKey() + "="
+                + ((DtoKeyValue<?, ?>) keyValue).getValue()).collect(Collectors.joining(","));
+    }
+
+    private DtoStatistics statistic(Map<String, Object> result, String label, String statistic) {
+        return ((List<?>) result.get("statistics")).stream().map(DtoStatistics.class::cast)
+                .filter(row -> row.getLabel().equals(label) && row.getStatistic().equals(statistic))
+                .findFirst().orElse(null);
+    }
+
+    @Test
+    public void testCounts() {
+        Map<String, Object> result = index().aggregate(List.of(1, 2, 3, 99), List.of());
+        // groups ordered by description as the ORDER BY of the queries, groups without solutions are left out
+        assertEquals("ABW=1,KEN=2,NLD=1", keyValues(result.get("countSolutionByCountry")));
+        assertEquals("2000=1,2010=2", keyValues(result.get("countSolutionByLaunch")));
+        assertEquals("Agribusiness=1,NGO=2", keyValues(result.get("countSolutionByOrganisationType")));
+        assertEquals("AI=1,SMS=2", keyValues(result.get("countSolutionByTechnology")));
+        assertEquals("Advisory=1,Finance=2", keyValues(result.get("countSolutionByUseCase")));
+        // cardinality(usecases) > 0 only
+        assertEquals("1=1,2=1", keyValues(result.get("countSolutionByUseCaseNumber")));
+    }
+
+    @Test
+    public void testCountsOfSelection() {
+        Map<String, Object> result = index().aggregate(List.of(1, 2), List.of("KEN", "XXX"));
+        // the country filter limits the country histogram only
+        assertEquals("KEN=2", keyValues(result.get("countSolutionByCountry")));
+        assertEquals("AI=1,SMS=2", keyValues(result.get("countSolutionByTechnology")));
+        assertEquals("2000=1,2010=1", keyValues(result.get("countSolutionByLaunch")));
+    }
+
+    @Test
+    public void testStatistics() {
+        Map<String, Object> result = index().aggregate(List.of(1, 2, 3), List.of());
+        assertEquals(7, ((List<?>) result.get("statistics")).size());
+
+        // rows with null women users are left out, AVG skips null registered users
+        DtoStatistics min = statistic(result, "women", "min");
+        assertEquals(100.0, min.getRegisteredusers());
+        assertEquals(10.0, min.getUsers());
+        DtoStatistics avg = statistic(result, "women", "avg");
+        assertEquals(100.0, avg.getRegisteredusers());
+        assertEquals(20.0, avg.getUsers());
+        DtoStatistics max = statistic(result, "women", "max");
+        assertNull(max.getRegisteredusers());
+        assertEquals(30.0, max.getUsers());
+
+        // ROUND(AVG(...), 3)
+        avg = statistic(result, "youth", "avg");
+        assertEquals(75.0, avg.getRegisteredusers());
+        assertEquals(1.333, avg.getUsers());
+
+        // no rows: the min and max selects return nothing, the avg select one row of nulls
+        assertNull(statistic(result, "shf", "min"));
+        assertNull(statistic(result, "shf", "max"));
+        avg = statistic(result, "shf", "avg");
+        assertNull(avg.getRegisteredusers());
+        assertNull(avg.getUsers());
+    }
+
+    @Test
+    public void testEmptySelection() {
+        Map<String, Object> result = index().aggregate(List.of(), List.of());
+        assertEquals("", keyValues(result.get("countSolutionByCountry")));
+        assertEquals("", keyValues(result.get("countSolutionByLaunch")));
+        assertEquals(3, ((List<?>) result.get("statistics")).size());
+    }
+}
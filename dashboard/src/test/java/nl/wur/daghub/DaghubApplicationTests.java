@@ -30,6 +30,7 @@ package nl.wur.daghub;
 
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -154,6 +155,30 @@ class DaghubApplicationTests {
                 .andExpect(jsonPath("$.solutions[0].id").value(101));
     }
 
+    @Test
+    public void testSearch() throws Exception {
+        mockMvc.perform(get("/api/search?text=farm")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(greaterThan(20)))
+                .andExpect(jsonPath("$.solutions", hasSize(20)))
+                .andExpect(jsonPath("$.solutions[0].rank").value(greaterThan(0.0)));
+
+        mockMvc.perform(get("/api/search?text=farm&technologies=1&page=1&size=5")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.solutions", hasSize(lessThanOrEqualTo(5))));
+
+        // past the last page the total is still counted, the offset does not overflow
+        mockMvc.perform(get("/api/search?text=farm&page=2147483647&size=100")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(greaterThan(20)))
+                .andExpect(jsonPath("$.solutions", hasSize(0)));
+
+        mockMvc.perform(get("/api/search?text=farm&page=-1")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search?text=farm&size=0")).andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/search?text=%20")).andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(0))
+                .andExpect(jsonPath("$.solutions", hasSize(0)));
+    }
+
     @Test
     public void testCors() throws Exception {
         mockMvc.perform(get("/api/find/country").header("Origin", corsUrl)).andExpect(status().isOk())
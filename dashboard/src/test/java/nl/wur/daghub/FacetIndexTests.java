@@ -0,0 +1,117 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import nl.wur.daghub.index.FacetIndex;
+import nl.wur.daghub.index.FacetIndex.Facet;
+
+class FacetIndexTests {
+
+    // solutions 1..4; 5 has facet values but is not visible
+    private FacetIndex index() {
+        return FacetIndex.builder()
+                .solution(1).solution(2).solution(3).solution(4)
+                .value(Facet.TECHNOLOGY, 1, 1).value(Facet.TECHNOLOGY, 1, 2).value(Facet.TECHNOLOGY, 2, 3)
+                .value(Facet.TECHNOLOGY, 1, 5)
+                .value(Facet.COUNTRY, "NLD", 1).value(Facet.COUNTRY, "KEN", 2).value(Facet.COUNTRY, "KEN", 3)
+                .build();
+    }
+
+    private Map<Facet, List<?>> criteria(Facet facet, List<?> values) {
+        Map<Facet, List<?>> criteria = new EnumMap<>(Facet.class);
+        criteria.put(facet, values);
+        return criteria;
+    }
+
+    @Test
+    public void testFilter() {
+        FacetIndex index = index();
+        assertEquals(4, index.size());
+        assertArrayEquals(new int[] { 1, 2, 3, 4 }, index.filter(Collections.emptyMap()).toArray());
+        assertArrayEquals(new int[] { 1, 2, 3, 4 }, index.filter(criteria(Facet.TECHNOLOGY, null)).toArray());
+        assertArrayEquals(new int[] { 1, 2, 3, 4 }, index.filter(criteria(Facet.TECHNOLOGY, List.of())).toArray());
+
+        // any value within a facet, the invisible solution 5 is never returned
+        assertArrayEquals(new int[] { 1, 2 }, index.filter(criteria(Facet.TECHNOLOGY, List.of(1))).toArray());
+        assertArrayEquals(new int[] { 1, 2, 3 }, index.filter(criteria(Facet.TECHNOLOGY, List.of(1, 2))).toArray());
+        assertTrue(index.filter(criteria(Facet.TECHNOLOGY, List.of(999))).isEmpty());
+
+        // every facet
+        Map<Facet, List<?>> criteria = criteria(Facet.TECHNOLOGY, List.of(1));
+        criteria.put(Facet.COUNTRY, List.of("KEN"));
+        assertArrayEquals(new int[] { 2 }, index.filter(criteria).toArray());
+    }
+
+    @Test
+    public void testFilterDoesNotChangeIndex() {
+        FacetIndex index = index();
+        index.filter(criteria(Facet.TECHNOLOGY, List.of(2))).add(1);
+        assertArrayEquals(new int[] { 3 }, index.filter(criteria(Facet.TECHNOLOGY, List.of(2))).toArray());
+    }
+
+    @Test
+    public void testPatch() {
+        FacetIndex index = index();
+        // solution 2 moves to technology 2, solution 3 is removed, solution 6 is added
+        FacetIndex additions = FacetIndex.builder()
+                .solution(2).solution(6)
+                .value(Facet.TECHNOLOGY, 2, 2).value(Facet.TECHNOLOGY, 3, 6)
+                .value(Facet.COUNTRY, "KEN", 2)
+                .build();
+        FacetIndex patched = index.patch(RoaringBitmap.bitmapOf(2, 3, 6), additions);
+
+        assertArrayEquals(new int[] { 1, 2, 4, 6 }, patched.getSolutions().toArray());
+        assertArrayEquals(new int[] { 1 }, patched.filter(criteria(Facet.TECHNOLOGY, List.of(1))).toArray());
+        assertArrayEquals(new int[] { 2 }, patched.filter(criteria(Facet.TECHNOLOGY, List.of(2))).toArray());
+        assertArrayEquals(new int[] { 6 }, patched.filter(criteria(Facet.TECHNOLOGY, List.of(3))).toArray());
+        assertArrayEquals(new int[] { 2 }, patched.filter(criteria(Facet.COUNTRY, List.of("KEN"))).toArray());
+        assertArrayEquals(new int[] { 1 }, patched.filter(criteria(Facet.COUNTRY, List.of("NLD"))).toArray());
+
+        // copy-on-write, the previous snapshot is unchanged
+        assertArrayEquals(new int[] { 1, 2, 3, 4 }, index.getSolutions().toArray());
+        assertArrayEquals(new int[] { 1, 2 }, index.filter(criteria(Facet.TECHNOLOGY, List.of(1))).toArray());
+        assertArrayEquals(new int[] { 3 }, index.filter(criteria(Facet.TECHNOLOGY, List.of(2))).toArray());
+    }
+
+    @Test
+    public void testPatchWithoutAdditions() {
+        FacetIndex patched = index().patch(RoaringBitmap.bitmapOf(1, 2), FacetIndex.builder().build());
+        assertArrayEquals(new int[] { 3, 4 }, patched.getSolutions().toArray());
+        assertTrue(patched.filter(criteria(Facet.TECHNOLOGY, List.of(1))).isEmpty());
+        assertTrue(patched.filter(criteria(Facet.COUNTRY, List.of("NLD"))).isEmpty());
+    }
+}
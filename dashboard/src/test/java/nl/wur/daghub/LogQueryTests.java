@@ -0,0 +1,122 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import nl.wur.daghub.database.domain.LogQuery;
+import nl.wur.daghub.service.ServiceLogQuery;
+
+class LogQueryTests {
+
+    private ServiceLogQuery service(JdbcTemplate jdbcTemplate, int capacity, int batchSize) {
+        ServiceLogQuery service = new ServiceLogQuery(jdbcTemplate, capacity);
+        ReflectionTestUtils.setField(service, "batchSize", batchSize);
+        ReflectionTestUtils.setField(service, "flushInterval", Duration.ofMillis(50));
+        ReflectionTestUtils.setField(service, "offerTimeout", Duration.ofMillis(1));
+        return service;
+    }
+
+    private LogQuery logQuery() {
+        return new LogQuery(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private JdbcTemplate jdbcTemplate(List<Integer> batches) {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class))).thenAnswer(invocation -> {
+                    batches.add(invocation.getArgument(1, Collection.class).size());
+                    return new int[0][];
+                });
+        return jdbcTemplate;
+    }
+
+    @Test
+    public void testDrop() {
+        // no writer started: the queue fills up and stays full
+        ServiceLogQuery service = service(mock(JdbcTemplate.class), 2, 10);
+        for (int i = 0; i < 5; i++)
+            service.log(logQuery());
+        assertEquals(2, service.getStatistics().get("queued"));
+        assertEquals(2L, service.getStatistics().get("enqueuedCount"));
+        assertEquals(3L, service.getStatistics().get("droppedCount"));
+    }
+
+    @Test
+    public void testDrain() throws InterruptedException {
+        List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        ServiceLogQuery service = service(jdbcTemplate(batches), 100, 4);
+        for (int i = 0; i < 10; i++)
+            service.log(logQuery());
+        service.start();
+        service.stop();
+
+        // everything queued before the stop is written, in batches of at most batch-size
+        assertEquals(10, batches.stream().mapToInt(Integer::intValue).sum());
+        batches.forEach(batch -> assertTrue(batch <= 4));
+        assertEquals(0, service.getStatistics().get("queued"));
+        assertEquals(10L, service.getStatistics().get("writtenCount"));
+        assertEquals(0L, service.getStatistics().get("droppedCount"));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testFailedBatch() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+        ServiceLogQuery service = service(jdbcTemplate, 100, 4);
+        for (int i = 0; i < 3; i++)
+            service.log(logQuery());
+        service.start();
+        service.stop();
+
+        // the entries are counted as failed and the writer keeps running until stopped
+        assertEquals(0, service.getStatistics().get("queued"));
+        assertEquals(0L, service.getStatistics().get("writtenCount"));
+        assertEquals(3L, service.getStatistics().get("failedCount"));
+    }
+}
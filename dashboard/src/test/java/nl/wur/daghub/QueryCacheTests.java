@@ -0,0 +1,80 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.wur.daghub.event.EventDataChanged;
+import nl.wur.daghub.service.ServiceQueryCache;
+
+class QueryCacheTests {
+
+    @Test
+    public void testKey() {
+        // order, duplicates and null lists do not matter
+        assertEquals(ServiceQueryCache.key("query", List.of(3, 1), null, List.of("NLD", "ABW")),
+                ServiceQueryCache.key("query", Arrays.asList(1, 3, 1), List.of(), List.of("ABW", "NLD", "ABW")));
+        assertEquals(List.of(List.of("query"), List.of(1, 3), List.of()),
+                ServiceQueryCache.key("query", List.of(3, 1, 3), null));
+
+        // the mode and the position of a filter do
+        assertNotEquals(ServiceQueryCache.key("query", List.of(1)), ServiceQueryCache.key("streaming", List.of(1)));
+        assertNotEquals(ServiceQueryCache.key("query", List.of(1), List.of()),
+                ServiceQueryCache.key("query", List.of(), List.of(1)));
+    }
+
+    @Test
+    public void testGet() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ServiceQueryCache cache = new ServiceQueryCache(10, Duration.ofMinutes(10), meterRegistry);
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, Object> reply = cache.get(ServiceQueryCache.key("query", List.of(2, 1)),
+                () -> Map.of("load", loads.incrementAndGet()));
+        assertSame(reply, cache.get(ServiceQueryCache.key("query", List.of(1, 2)),
+                () -> Map.of("load", loads.incrementAndGet())));
+        cache.get(ServiceQueryCache.key("streaming", List.of(1, 2)), () -> Map.of("load", loads.incrementAndGet()));
+        assertEquals(2, loads.get());
+        assertEquals(1L, cache.getStatistics().get("hitCount"));
+        assertEquals(2L, cache.getStatistics().get("missCount"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "query").tag("result", "hit")
+                .functionCounter().count());
+
+        cache.onDataChanged(new EventDataChanged(null, null));
+        cache.get(ServiceQueryCache.key("query", List.of(1, 2)), () -> Map.of("load", loads.incrementAndGet()));
+        assertEquals(3, loads.get());
+    }
+}
@@ -30,11 +30,13 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 @EntityScan(basePackages = { "nl.wur.daghub.database.domain" })
 @EnableJpaRepositories(basePackages = { "nl.wur.daghub.database.repository" })
+@EnableScheduling
 public class DataEntryApplication {
 
 	public static void main(String[] args) {
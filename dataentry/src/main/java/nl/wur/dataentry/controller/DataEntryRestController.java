@@ -63,6 +63,9 @@ import nl.wur.daghub.database.domain.Sector;
 import nl.wur.daghub.database.domain.SubUseCase;
 import nl.wur.daghub.database.domain.Tag;
 import nl.wur.daghub.database.domain.Technology;
+import nl.wur.daghub.database.dto.DtoOrganisationFields;
+import nl.wur.daghub.database.dto.DtoSolutionFields;
+import nl.wur.dataentry.dto.DtoDetail;
 import nl.wur.dataentry.dto.DtoOrganisation;
 import nl.wur.dataentry.dto.DtoResponse;
 import nl.wur.dataentry.dto.DtoSolution;
@@ -124,7 +127,7 @@ public class DataEntryRestController {
 
     @Operation(summary = "Get organisation", tags = "2-organisation")
     @GetMapping("/organisations/{id}")
-    public Map<String, Object> getOrganisations(@PathVariable int id) {
+    public DtoDetail<DtoOrganisationFields> getOrganisations(@PathVariable int id) {
         return service.getOrganisations(id);
     }
 
@@ -148,7 +151,7 @@ public class DataEntryRestController {
 
     @Operation(summary = "Get solution", tags = "3-solution")
     @GetMapping("/solutions/{id}")
-    public Map<String, Object> getSolution(@PathVariable int id) {
+    public DtoDetail<DtoSolutionFields> getSolution(@PathVariable int id) {
         return service.getSolutions(id);
     }
 
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.dataentry.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonAnyGetter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import nl.wur.daghub.database.dto.DtoLanguageTranslation;
+import nl.wur.daghub.database.dto.DtoOption;
+
+/**
+ * Edit form of a solution or organisation, serialised as the entity was: the
+ * fields of the entry, its options by property (a list for the properties
+ * given, otherwise one option) and further properties such as translations.
+ */
+public class DtoDetail<T> {
+    private final @Getter @JsonUnwrapped T fields;
+    private final Map<String, Object> properties = new LinkedHashMap<>();
+
+    public DtoDetail(T fields, String... lists) {
+        this.fields = fields;
+        for (String list : lists)
+            properties.put(list, new ArrayList<Option>());
+    }
+
+    @JsonAnyGetter
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void addOptions(List<DtoOption> rows) {
+        for (DtoOption row : rows) {
+            Option option = new Option(row.getCode() != null ? row.getCode() : row.getId(), row.getDescription(),
+                    row.getLmic(),
+                    row.getUsecase() == null ? null
+                            : new Option(row.getUsecase(), row.getUsecaseDescription(), null, null, null),
+                    row.getCountry() == null ? null
+                            : new Option(row.getCountry(), row.getCountryDescription(), row.getCountryLmic(), null,
+                                    null));
+            Object value = properties.get(row.getProperty());
+            if (value instanceof List)
+                ((List<Option>) value).add(option);
+            else
+                properties.put(row.getProperty(), option);
+        }
+    }
+
+    public void addTranslations(List<DtoLanguageTranslation> rows) {
+        List<Translation> translations = new ArrayList<>();
+        for (DtoLanguageTranslation row : rows)
+            translations.add(new Translation(new Option(row.getLanguage(), row.getDescription(), null, null, null),
+                    row.getTranslation()));
+        properties.put("translations", translations);
+    }
+
+    public void put(String property, Object value) {
+        properties.put(property, value);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Option {
+        // Integer, or String for countries
+        private Object id;
+        private String description;
+        private Boolean lmic;
+        private Option usecase;
+        private Option country;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Translation {
+        private Option language;
+        private String translation;
+    }
+}
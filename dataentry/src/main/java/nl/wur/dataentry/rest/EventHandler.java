@@ -24,6 +24,11 @@
 
 package nl.wur.dataentry.rest;
 
+import java.util.List;
+
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
 import org.springframework.data.rest.core.annotation.HandleBeforeCreate;
 import org.springframework.data.rest.core.annotation.HandleBeforeSave;
 import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
@@ -31,28 +36,57 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import nl.wur.daghub.database.domain.Entry;
-import nl.wur.daghub.database.repository.RepositoryUser;
+import nl.wur.daghub.database.domain.Organisation;
+import nl.wur.daghub.database.domain.Solution;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.dataentry.security.AuthUser;
+import nl.wur.dataentry.security.Ownership;
 
 @Component
 @RepositoryEventHandler
 public class EventHandler {
 
-	private final RepositoryUser repositoryUser;
+	private final Ownership ownership;
+	private final RepositorySolution repositorySolution;
+
+	public EventHandler(Ownership ownership, RepositorySolution repositorySolution) {
+		this.ownership = ownership;
+		this.repositorySolution = repositorySolution;
+	}
 
-	public EventHandler(RepositoryUser repositoryUser) {
-		this.repositoryUser = repositoryUser;
+	private AuthUser getAuthUser() {
+		return ownership.getAuthUser(SecurityContextHolder.getContext().getAuthentication());
 	}
 
 	@HandleBeforeCreate
 	public void applyUserBeforeCreate(Entry entry) {
-		entry.setOwners(entry.addOwner(repositoryUser.findByEmail(
-				SecurityContextHolder.getContext().getAuthentication().getName()).get().getId()));
+		entry.setOwners(entry.addOwner(getAuthUser().getId()));
 	}
 
 	@HandleBeforeSave
 	public void applyUserBeforeSave(Entry entry) {
 		if (entry.getOwners() == null)
-			entry.setOwners(entry.addOwner(repositoryUser.findByEmail(
-					SecurityContextHolder.getContext().getAuthentication().getName()).get().getId()));
+			entry.setOwners(entry.addOwner(getAuthUser().getId()));
+	}
+
+	// the new entry is owned by the user for the rest of its session, once it is committed
+	@HandleAfterCreate
+	public void applyUserAfterCreate(Entry entry) {
+		if (entry instanceof Solution)
+			ownership.addSolution(getAuthUser(), ((Solution) entry).getId(), entry.getOwners());
+		else if (entry instanceof Organisation)
+			ownership.addOrganisation(getAuthUser(), ((Organisation) entry).getId(), entry.getOwners());
+	}
+
+	// the read model of the dashboard (solution_facets) follows the changes made through the rest api
+	@HandleAfterCreate
+	@HandleAfterSave
+	@HandleAfterDelete
+	public void refreshFacets(Entry entry) {
+		if (entry instanceof Solution)
+			repositorySolution.refreshFacets(SqlArray.of(List.of(((Solution) entry).getId())));
+		else if (entry instanceof Organisation)
+			repositorySolution.refreshFacetsByOrganisationId(((Organisation) entry).getId());
 	}
 }
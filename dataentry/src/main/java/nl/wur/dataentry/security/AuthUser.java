@@ -0,0 +1,85 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry.security;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Principal of an authenticated user with its id and the ids of the solutions
+ * and organisations it owns, resolved once at login and kept with the validated
+ * token; the owner checks of existing entries update them from the entry.
+ */
+public class AuthUser extends User {
+	private static final long serialVersionUID = 1L;
+
+	private final int id;
+	private final Set<Integer> solutions = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> organisations = ConcurrentHashMap.newKeySet();
+
+	public AuthUser(UserDetails user, int id, Collection<Integer> solutions, Collection<Integer> organisations) {
+		super(user.getUsername(), user.getPassword(), user.isEnabled(), user.isAccountNonExpired(),
+				user.isCredentialsNonExpired(), user.isAccountNonLocked(), user.getAuthorities());
+		this.id = id;
+		this.solutions.addAll(solutions);
+		this.organisations.addAll(organisations);
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public boolean isAdmin() {
+		return getAuthorities().stream().anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+	}
+
+	public boolean ownsSolution(int solution) {
+		return solutions.contains(solution);
+	}
+
+	public boolean ownsOrganisation(int organisation) {
+		return organisations.contains(organisation);
+	}
+
+	public void addSolution(int solution) {
+		solutions.add(solution);
+	}
+
+	public void addOrganisation(int organisation) {
+		organisations.add(organisation);
+	}
+
+	public void removeSolution(int solution) {
+		solutions.remove(solution);
+	}
+
+	public void removeOrganisation(int organisation) {
+		organisations.remove(organisation);
+	}
+}
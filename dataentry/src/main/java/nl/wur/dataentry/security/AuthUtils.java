@@ -27,8 +27,13 @@ package nl.wur.dataentry.security;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -47,13 +52,26 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.hash.Hashing;
+
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import nl.wur.daghub.database.domain.User;
 import nl.wur.daghub.database.repository.RepositoryUser;
@@ -65,20 +83,55 @@ import nl.wur.dataentry.dto.DtoResponse;
 public class AuthUtils implements SmartInitializingSingleton {
     private @Value("${dataentry.jwt.signing.key}") String signingKey;
     private @Value("${dataentry.jwt.expiration}") int expiration;
+    private @Value("${dataentry.jwt.cache.maximum-size}") long cacheMaximumSize;
+    private @Value("${dataentry.jwt.cache.expiration}") long cacheExpiration;
     private AuthenticationManagerBuilder authMgrBuilder;
     private AuthenticationManager authManager;
     private UserDetailsService userDetailsService;
     private RepositoryUser repositoryUser;
+    private MeterRegistry meterRegistry;
+    private Key key;
+    private JwtParser jwtParser;
+    // validated tokens by SHA-256 of the token, until the token expires or at most cacheExpiration
+    private Cache<String, JwtValidated> jwtCache;
+    // evictions by user: a token validated while its user was evicted is not kept
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
 
-    public AuthUtils(AuthenticationManagerBuilder authMgrBuilder, UserDetailsService userDetailsService, RepositoryUser repositoryUser) {
+    public AuthUtils(AuthenticationManagerBuilder authMgrBuilder, UserDetailsService userDetailsService,
+            RepositoryUser repositoryUser, MeterRegistry meterRegistry) {
         this.authMgrBuilder = authMgrBuilder;
         this.userDetailsService = userDetailsService;
         this.repositoryUser = repositoryUser;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public void afterSingletonsInstantiated() {
         this.authManager = authMgrBuilder.getObject();
+        this.key = Keys.hmacShaKeyFor(signingKey.getBytes(StandardCharsets.UTF_8));
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.jwtCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new Expiry<String, JwtValidated>() {
+                    @Override
+                    public long expireAfterCreate(String hash, JwtValidated validated, long currentTime) {
+                        long remaining = validated.getClaims().getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(remaining, cacheExpiration)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String hash, JwtValidated validated, long currentTime,
+                            long currentDuration) {
+                        return expireAfterCreate(hash, validated, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String hash, JwtValidated validated, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public boolean validateBasicAuthToken(HttpServletRequest request, HttpServletResponse response) {
@@ -89,6 +142,7 @@ public class AuthUtils implements SmartInitializingSingleton {
             email = credentials[0];
             auth = authManager.authenticate(new UsernamePasswordAuthenticationToken(email, credentials[1]));
             if (request.getMethod().equals("POST")) {
+                evictJwtTokens(email);
                 User user = getUserByEmail(email);
                 String jwt = user.getToken();
                 if (jwt == null || request.getSession().isNew() || isTokenExpired(jwt)) {
@@ -129,38 +183,91 @@ public class AuthUtils implements SmartInitializingSingleton {
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(Keys.hmacShaKeyFor(signingKey.getBytes(StandardCharsets.UTF_8)))
+                .signWith(key)
                 .compact();
     }
 
     public boolean validateJwtToken(HttpServletRequest request, HttpServletResponse response) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String cache = "miss";
+        String outcome = "error";
         try {
             String jwt = parseJwtHeader(request);
-            String username = getUsernameFromJwtToken(jwt);
-            if (!jwt.equals(repositoryUser.findTokenByEmail(username))) {
-                throw new JwtException("Invalid token");
-            }
-            if (request.getServletPath().equals("/api/logout")) {
-                updateToken(username, null);
-            }
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            String hash = Hashing.sha256().hashString(jwt, StandardCharsets.UTF_8).toString();
+            boolean logout = request.getServletPath().equals("/api/logout");
+            JwtValidated validated = jwtCache.getIfPresent(hash);
+            if (validated == null || logout) {
+                Claims claims = getClaimsFromJwtToken(jwt);
+                String username = claims.getSubject();
+                long generation = generation(username).get();
+                if (!jwt.equals(repositoryUser.findTokenByEmail(username))) {
+                    throw new JwtException("Invalid token");
+                }
+                if (logout) {
+                    updateToken(username, null);
+                    evictJwtTokens(username);
+                }
+                validated = new JwtValidated(claims, userDetailsService.loadUserByUsername(username));
+                if (!logout) {
+                    jwtCache.put(hash, validated);
+                    if (generation(username).get() != generation)
+                        jwtCache.asMap().remove(hash, validated);
+                }
+            } else
+                cache = "hit";
+            UserDetails userDetails = validated.getUserDetails();
             SecurityContextHolder.getContext().setAuthentication(
                     new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+            outcome = "valid";
         } catch (ExpiredJwtException e) {
+            outcome = "expired";
             writeError(response, "Expired JWT token: " + e.getMessage());
             return false;
         } catch (MalformedJwtException e) {
+            outcome = "malformed";
             writeError(response, "Invalid JWT token: " + e.getMessage());
             return false;
         } catch (JwtException e) {
+            outcome = "invalid";
             writeError(response, "JWT exception: " + e.getMessage());
             return false;
+        } finally {
+            sample.stop(Timer.builder("dataentry.jwt.validation")
+                    .description("JWT validation of the requests, cache is a hit of the validated tokens")
+                    .tag("cache", cache)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
         }
         return true;
     }
 
+    /**
+     * Forgets the validated tokens of the user, also after commit of the current
+     * transaction, so that a changed or revoked token is checked again.
+     */
+    public void evictJwtTokens(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(username);
+                }
+            });
+    }
+
+    // the generation is bumped before the removal, so a validation loading in between drops its own entry
+    private void evict(String username) {
+        generation(username).incrementAndGet();
+        jwtCache.asMap().values().removeIf(validated -> validated.getClaims().getSubject().equals(username));
+    }
+
+    private AtomicLong generation(String username) {
+        return generations.computeIfAbsent(username, key -> new AtomicLong());
+    }
+
     public User getUserFromToken(String jwt) {
-        String username = getUsernameFromJwtToken(jwt);
+        String username = getClaimsFromJwtToken(jwt).getSubject();
         User user = repositoryUser.findByEmail(username).get();
         if (!jwt.equals(user.getTokenreset()))
             throw new JwtException("Invalid token");
@@ -169,11 +276,7 @@ public class AuthUtils implements SmartInitializingSingleton {
 
     private boolean isTokenExpired(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(signingKey.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody().getExpiration();
+            jwtParser.parseClaimsJws(token).getBody().getExpiration();
             return false;
         } catch (ExpiredJwtException e) {
             log.error("Expired JWT token: " + e.getMessage());
@@ -185,13 +288,9 @@ public class AuthUtils implements SmartInitializingSingleton {
         return true;
     }
 
-    private String getUsernameFromJwtToken(String token) {
+    private Claims getClaimsFromJwtToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(Keys.hmacShaKeyFor(signingKey.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody().getSubject();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
             throw new JwtException("Expired JWT token: " + e.getMessage());
         } catch (MalformedJwtException e) {
@@ -232,4 +331,11 @@ public class AuthUtils implements SmartInitializingSingleton {
             e.printStackTrace();
         }
     }
+
+    @Getter
+    @AllArgsConstructor
+    private static class JwtValidated {
+        private Claims claims;
+        private UserDetails userDetails;
+    }
 }
@@ -33,6 +33,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -43,8 +44,9 @@ import lombok.extern.slf4j.Slf4j;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private AuthUtils authUtils;
     private Set<String> paths;
+    private int managementPort;
 
-    public JwtAuthenticationFilter(AuthUtils authUtils) {
+    public JwtAuthenticationFilter(AuthUtils authUtils, @Value("${management.server.port:-1}") int managementPort) {
         paths = new HashSet<>();
         paths.add("POST /api/login");
         paths.add("GET /api/csrf");
@@ -66,6 +68,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         paths.add("GET /index.html");
         paths.add("GET /tinymce.css");
         this.authUtils = authUtils;
+        this.managementPort = managementPort;
     }
 
     @Override
@@ -79,7 +82,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getMethod() + " " + request.getServletPath();
         log.info("==> " + path);
-        return paths.contains(path) || path.startsWith("GET /api/swagger-ui/") || path.startsWith("GET /api/docs/")
+        return request.getLocalPort() == managementPort || paths.contains(path)
+                || path.startsWith("GET /api/swagger-ui/") || path.startsWith("GET /api/docs/")
                 || path.startsWith("GET /static/") || path.startsWith("GET /tinymce/");
     }
 }
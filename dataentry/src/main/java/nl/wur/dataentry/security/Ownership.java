@@ -0,0 +1,127 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import nl.wur.daghub.database.domain.Entry;
+import nl.wur.daghub.database.domain.User;
+import nl.wur.daghub.database.repository.RepositoryOrganisation;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.RepositoryUser;
+
+/**
+ * Owner checks of the security expressions of the repositories (@ownership),
+ * answered from the {@link AuthUser} of the authentication instead of looking up
+ * the user for every write.
+ */
+@Component("ownership")
+public class Ownership {
+	private final UserDetailsService userDetailsService;
+	private final RepositorySolution repositorySolution;
+	private final RepositoryOrganisation repositoryOrganisation;
+	private final RepositoryUser repositoryUser;
+	private final AuthUtils authUtils;
+
+	public Ownership(UserDetailsService userDetailsService, RepositorySolution repositorySolution,
+			RepositoryOrganisation repositoryOrganisation, RepositoryUser repositoryUser, AuthUtils authUtils) {
+		this.userDetailsService = userDetailsService;
+		this.repositorySolution = repositorySolution;
+		this.repositoryOrganisation = repositoryOrganisation;
+		this.repositoryUser = repositoryUser;
+		this.authUtils = authUtils;
+	}
+
+	// the principal of a token or a login is an AuthUser, other authentications (tests) are resolved by name
+	public AuthUser getAuthUser(Authentication authentication) {
+		if (authentication.getPrincipal() instanceof AuthUser)
+			return (AuthUser) authentication.getPrincipal();
+		return (AuthUser) userDetailsService.loadUserByUsername(authentication.getName());
+	}
+
+	public boolean isOwner(Authentication authentication, Entry entry) {
+		return entry != null && entry.hasOwner(getAuthUser(authentication).getId());
+	}
+
+	// owners can be added or removed after the login, so the principal is only trusted when the current entry
+	// confirms it: every check looks up the entry and the principal follows its owners
+	public boolean ownsSolution(Authentication authentication, Integer id) {
+		AuthUser user = getAuthUser(authentication);
+		boolean owns = repositorySolution.findById(id).map(solution -> solution.hasOwner(user.getId())).orElse(false);
+		if (owns)
+			user.addSolution(id);
+		else
+			user.removeSolution(id);
+		return owns;
+	}
+
+	public boolean ownsOrganisation(Authentication authentication, Integer id) {
+		AuthUser user = getAuthUser(authentication);
+		boolean owns = repositoryOrganisation.findById(id).map(organisation -> organisation.hasOwner(user.getId()))
+				.orElse(false);
+		if (owns)
+			user.addOrganisation(id);
+		else
+			user.removeOrganisation(id);
+		return owns;
+	}
+
+	// a created solution is owned by the user once the transaction commits, a rollback leaves the principal as it was
+	public void addSolution(AuthUser user, int id, Integer[] owners) {
+		afterCommit(() -> user.addSolution(id));
+		evictOwners(user, owners);
+	}
+
+	public void addOrganisation(AuthUser user, int id, Integer[] owners) {
+		afterCommit(() -> user.addOrganisation(id));
+		evictOwners(user, owners);
+	}
+
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	// the other owners of the entry get it in their principal with their next validated token
+	private void evictOwners(AuthUser user, Integer[] owners) {
+		if (owners == null)
+			return;
+		for (Integer owner : owners)
+			if (owner != null && owner != user.getId())
+				repositoryUser.findById(owner).map(User::getEmail).ifPresent(authUtils::evictJwtTokens);
+	}
+}
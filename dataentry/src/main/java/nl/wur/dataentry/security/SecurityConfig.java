@@ -50,6 +50,7 @@ public class SecurityConfig {
 	private @Autowired CustomAuthenticationEntryPoint authenticationEntryPoint;
 	private @Value("${dataentry.cors.url}") String urlCors;
 	private @Value("${dataentry.frame.url}") String urlFrame;
+	private @Value("${management.server.port:-1}") int managementPort;
 
 	private static final String[] AUTH_WHITELIST = {
 			"/api/user/forgot",
@@ -92,7 +93,9 @@ public class SecurityConfig {
 
 		http.exceptionHandling().authenticationEntryPoint(authenticationEntryPoint);
 
+		// the actuator endpoints are only served on the management port, which is not published
 		http.authorizeRequests()
+				.requestMatchers(request -> request.getLocalPort() == managementPort).permitAll()
 				.antMatchers(AUTH_WHITELIST).permitAll()
 				.antMatchers(HttpMethod.POST, "/api/user").permitAll()
 				.anyRequest().authenticated();
@@ -24,30 +24,41 @@
 
 package nl.wur.dataentry.security;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import nl.wur.daghub.database.repository.RepositoryOrganisation;
+import nl.wur.daghub.database.repository.RepositorySolution;
 import nl.wur.daghub.database.repository.RepositoryUser;
 
 @Configuration
 public class UserManagementConfig {
 	private @Autowired RepositoryUser repositoryUser;
+	private @Autowired RepositorySolution repositorySolution;
+	private @Autowired RepositoryOrganisation repositoryOrganisation;
 	
 	@Bean
 	protected UserDetailsService userDetailsService() {
 		return email -> {
 			nl.wur.daghub.database.domain.User user = repositoryUser.findByEmail(email)
 					.orElseThrow(() -> new UsernameNotFoundException(email + " not found"));
-			return org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
+			UserDetails details = org.springframework.security.core.userdetails.User.withUsername(user.getEmail())
 					.password(user.getPassword())
 					.roles(user.getRoles())
 					.disabled(!user.isEnabled())
 					.accountLocked(user.isEnabled() ? !user.isApproved() : false)
 					.build();
+			// an admin passes every owner check, so only the entries of an owner are resolved
+			return user.isAdmin() ? new AuthUser(details, user.getId(), List.of(), List.of())
+					: new AuthUser(details, user.getId(), repositorySolution.findIdsByOwner(user.getId()),
+							repositoryOrganisation.findIdsByOwner(user.getId()));
 		};
 	}
 
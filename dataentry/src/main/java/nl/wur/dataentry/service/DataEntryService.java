@@ -27,13 +27,20 @@ package nl.wur.dataentry.service;
 import java.io.IOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.AddressException;
@@ -41,10 +48,12 @@ import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.hibernate.jpa.TypedParameterValue;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.type.DoubleType;
 import org.hibernate.type.IntegerType;
 import org.hibernate.type.StringType;
@@ -55,19 +64,28 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.exc.StreamReadException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DatabindException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import nl.wur.daghub.database.domain.BusinessFundingStage;
 import nl.wur.daghub.database.domain.BusinessGrowthStage;
@@ -87,6 +105,8 @@ import nl.wur.daghub.database.domain.Technology;
 import nl.wur.daghub.database.domain.UseCase;
 import nl.wur.daghub.database.domain.User;
 import nl.wur.daghub.database.dto.DtoIdName;
+import nl.wur.daghub.database.dto.DtoOrganisationFields;
+import nl.wur.daghub.database.dto.DtoSolutionFields;
 import nl.wur.daghub.database.repository.RepositoryBusinessFundingStage;
 import nl.wur.daghub.database.repository.RepositoryBusinessGrowthStage;
 import nl.wur.daghub.database.repository.RepositoryBusinessModel;
@@ -103,6 +123,9 @@ import nl.wur.daghub.database.repository.RepositoryTag;
 import nl.wur.daghub.database.repository.RepositoryTechnology;
 import nl.wur.daghub.database.repository.RepositoryUseCase;
 import nl.wur.daghub.database.repository.RepositoryUser;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.dataentry.dto.DtoDetail;
+import nl.wur.dataentry.dto.DtoImportProgress;
 import nl.wur.dataentry.dto.DtoOrganisation;
 import nl.wur.dataentry.dto.DtoResponse;
 import nl.wur.dataentry.dto.DtoSolution;
@@ -110,12 +133,28 @@ import nl.wur.dataentry.dto.DtoTranslation;
 import nl.wur.dataentry.dto.DtoUser;
 import nl.wur.dataentry.dto.DtoUserReset;
 import nl.wur.dataentry.dto.ReCAPTCHAv3Response;
+import nl.wur.dataentry.security.AuthUser;
 import nl.wur.dataentry.security.AuthUtils;
+import nl.wur.dataentry.security.Ownership;
 
 @Slf4j
 @Service
 @SuppressWarnings("unchecked")
 public class DataEntryService {
+    // link tables of a solution with their id column
+    private static final Map<String, String> IN_SOLUTIONS = new LinkedHashMap<>();
+    static {
+        IN_SOLUTIONS.put("business_models_in_solutions", "businessmodel_id");
+        IN_SOLUTIONS.put("channels_in_solutions", "channel_id");
+        IN_SOLUTIONS.put("countries_in_solutions", "country_id");
+        IN_SOLUTIONS.put("languages_in_solutions", "language_id");
+        IN_SOLUTIONS.put("regions_in_solutions", "region_id");
+        IN_SOLUTIONS.put("sectors_in_solutions", "sector_id");
+        IN_SOLUTIONS.put("sub_use_cases_in_solutions", "subusecase_id");
+        IN_SOLUTIONS.put("tags_in_solutions", "tag_id");
+        IN_SOLUTIONS.put("technologies_in_solutions", "technology_id");
+    }
+
     private @Autowired PasswordEncoder passwordEncoder;
 
     private @Autowired RepositoryBusinessFundingStage repoBusinessFundingStage;
@@ -139,7 +178,14 @@ public class DataEntryService {
     private ObjectMapper mapper;
 
     private @Autowired AuthUtils authUtils;
+    private @Autowired Ownership ownership;
     private @Autowired RestTemplate restTemplate;
+    private @Autowired UrlCheckService urlCheckService;
+    private @Autowired MeterRegistry meterRegistry;
+    private @Autowired PlatformTransactionManager transactionManager;
+    private @Autowired SimpMessagingTemplate websocket;
+    private @Autowired ReferenceResolver references;
+    private @Value("${dataentry.import.chunk}") int importChunk;
     private @Autowired JavaMailSender mailSender;
     private @Value("${dataentry.registration.enabled}") boolean isRegistrationEnabled;
     private @Value("${dataentry.email}") String daghubEmail;
@@ -179,8 +225,12 @@ public class DataEntryService {
         return repoUser.findByEmail(getAuthUsername()).get();
     }
 
+    private AuthUser getAuthPrincipal() {
+        return ownership.getAuthUser(SecurityContextHolder.getContext().getAuthentication());
+    }
+
     private ResponseEntity<DtoResponse> isAuthorized(Entry entry, int id) {
-        User user = getAuthUser();
+        AuthUser user = getAuthPrincipal();
         if (user.isAdmin() || entry.hasOwner(user.getId())) {
             log.info("==> isAuthorized TRUE");
             return null;
@@ -267,6 +317,7 @@ public class DataEntryService {
         user.setPassword(passwordEncoder.encode(dtoUser.getPassword()));
         user.setTokenreset(null);
         repoUser.save(user);
+        authUtils.evictJwtTokens(user.getEmail());
         return ResponseEntity.ok(new DtoResponse(user.getEmail(), HttpStatus.OK.value(), "Password reset", null));
     }
 
@@ -309,6 +360,7 @@ public class DataEntryService {
         }
         repoUser.update(user.getId(), dtoUser.getName(), dtoUser.getCompany(), username,
                 passwordEncoder.encode(dtoUser.getPassword()), jwt);
+        authUtils.evictJwtTokens(user.getEmail());
         return ResponseEntity.ok().headers(headers).body(new DtoResponse(username,
                 HttpStatus.OK.value(), username + " updated", null));
     }
@@ -352,6 +404,7 @@ public class DataEntryService {
         String email = getAuthUsername();
         log.info("==> " + "deleteUser " + email);
         repoUser.delete(getAuthUser());
+        authUtils.evictJwtTokens(email);
     }
 
     private void sendEmail(String email, String subject, String text, boolean html) {
@@ -512,13 +565,16 @@ public class DataEntryService {
         return repoLanguage.findAll();
     }
 
-    public Map<String, Object> getOrganisations(Integer id) {
+    @Transactional(readOnly = true)
+    public DtoDetail<DtoOrganisationFields> getOrganisations(Integer id) {
         log.info("==> getOrganisations " + id);
-        if (repoOrganisation.findById(id).isPresent()) {
-            Organisation organisation = repoOrganisation.findById(id).get();
-            Map<String, Object> map = mapper.convertValue(organisation, Map.class);
-            map.put("solutions", repoSolution.findByOrganisationId(id));
-            return map;
+        Optional<DtoOrganisationFields> optOrganisation = repoOrganisation.findFieldsById(id);
+        if (optOrganisation.isPresent()) {
+            DtoDetail<DtoOrganisationFields> detail = new DtoDetail<>(optOrganisation.get());
+            detail.addOptions(repoOrganisation.findOptionsById(id));
+            detail.addTranslations(repoOrganisation.findTranslationsById(id));
+            detail.put("solutions", repoSolution.findByOrganisationId(id));
+            return detail;
         } else
             throw new RuntimeException("Organisation " + id + " does not exist");
     }
@@ -538,27 +594,21 @@ public class DataEntryService {
         return repoSector.findAll();
     }
 
-    public Map<String, Object> getSolutions(Integer id) {
+    /**
+     * The edit form with a fixed number of queries: the fields, the options of
+     * all reference tables (subUseCases without the primary one) and the
+     * translations.
+     */
+    @Transactional(readOnly = true)
+    public DtoDetail<DtoSolutionFields> getSolutions(Integer id) {
         log.info("==> getSolutions " + id);
-        if (repoSolution.findById(id).isPresent()) {
-            Solution solution = repoSolution.findById(id).get();
-            Map<String, Object> result = mapper.convertValue(solution, Map.class);
-
-            // remove primarysubusecase from subUseCases
-            Map<String, Object> primarysubusecase = null;
-            for (Map<String, Object> item : (List<Map<String, Object>>) result.get("subUseCases"))
-                if ((int) item.get("id") == solution.getPrimarysubusecase().getId()) {
-                    primarysubusecase = item;
-                    break;
-                }
-            ((List<Map<String, Object>>) result.get("subUseCases")).remove(primarysubusecase);
-
-            result.put("organisation", solution.getOrganisation().getId());
-            result.put("channels", repoSolution.findChannelsById(id));
-            result.put("countries", repoSolution.findCountriesById(id));
-            result.put("languages", repoSolution.findLanguagesById(id));
-            result.put("technologies", repoSolution.findTechnologiesById(id));
-            return result;
+        Optional<DtoSolutionFields> optSolution = repoSolution.findFieldsById(id);
+        if (optSolution.isPresent()) {
+            DtoDetail<DtoSolutionFields> detail = new DtoDetail<>(optSolution.get(), "businessModels", "channels",
+                    "countries", "languages", "regions", "sectors", "subUseCases", "tags", "technologies");
+            detail.addOptions(repoSolution.findOptionsById(id));
+            detail.addTranslations(repoSolution.findTranslationsById(id));
+            return detail;
         } else
             throw new RuntimeException("Solution " + id + " does not exist");
     }
@@ -598,97 +648,164 @@ public class DataEntryService {
         return map;
     }
 
+    // a native update without query spaces makes Hibernate evict every second-level cache region, this one only
+    // invalidates the entities and cached queries of the written table
+    private Query createNativeUpdate(String table, String sql) {
+        return em.createNativeQuery(sql).unwrap(NativeQuery.class).addSynchronizedQuerySpace(table);
+    }
+
+    // one multi-row INSERT per table, whatever the number of ids
     private <T> void insertIntoInSolutions(String table, List<T> ids, int idSolution) {
         log.info("==> insertInto " + table + " " + ids + " " + idSolution);
-        if (ids == null)
+        if (ids == null || ids.isEmpty())
             return;
+        Query query = createNativeUpdate(table, "INSERT INTO daghub_dataentry." + table + " VALUES "
+                + String.join(",", Collections.nCopies(ids.size(), "(?,?)")));
+        int position = 1;
         for (T id : ids)
-            em.createNativeQuery("INSERT INTO daghub_dataentry." + table + " VALUES (?,?)")
-                    .setParameter(1, id).setParameter(2, idSolution).executeUpdate();
+            query.setParameter(position++, id).setParameter(position++, idSolution);
+        query.executeUpdate();
     }
 
     private void insertIntoTranslations(String table, int id, List<DtoTranslation> translations) {
         log.info("==> insertInto " + table + " " + id + " " + translations);
-        if (translations == null)
+        if (translations == null || translations.isEmpty())
             return;
+        Query query = createNativeUpdate(table, "INSERT INTO daghub_dataentry." + table + " VALUES "
+                + String.join(",", Collections.nCopies(translations.size(), "(?,?,?)")));
+        int position = 1;
         for (DtoTranslation translation : translations)
-            em.createNativeQuery("INSERT INTO daghub_dataentry." + table + " VALUES (?,?,?)")
-                    .setParameter(1, id).setParameter(2, translation.getLanguage())
-                    .setParameter(3, translation.getTranslation())
-                    .executeUpdate();
+            query.setParameter(position++, id).setParameter(position++, translation.getLanguage())
+                    .setParameter(position++, translation.getTranslation());
+        query.executeUpdate();
     }
 
-    private void insertIntoLanguages(int idSolution, List<String> languages) {
-        log.info("==> insertIntoLanguages " + idSolution + " " + languages);
-        if (languages == null)
-            return;
-        List<Integer> ids = new ArrayList<>();
-        for (String language : languages) {
-            if (repoLanguage.existsByDescription(language))
-                ids.add(repoLanguage.findByDescription(language).get().getId());
-            else
-                ids.add(repoLanguage.save(new Language(language)).getId());
-        }
-        insertIntoInSolutions("languages_in_solutions", ids, idSolution);
+    private static <T> List<T> concat(List<T> list, List<T> other) {
+        List<T> result = new ArrayList<>();
+        if (list != null)
+            result.addAll(list);
+        if (other != null)
+            result.addAll(other);
+        return result;
     }
 
-    private void insertIntoRegions(int idSolution, List<DtoSolution.DtoRegion> regions) {
-        log.info("==> insertIntoRegions " + idSolution + " " + regions);
-        if (regions == null)
-            return;
-        for (DtoSolution.DtoRegion dtoRegion : regions) {
-            Country country = repoCountry.findById(dtoRegion.getCountry()).get();
-            List<Integer> ids = new ArrayList<>();
-            for (String region : dtoRegion.getRegions()) {
-                if (repoRegion.existsByDescriptionAndCountryId(region, country.getId()))
-                    ids.add(repoRegion.findByDescriptionAndCountryId(region, country.getId()).get().getId());
-                else
-                    ids.add(repoRegion.save(new Region(region, country)).getId());
-            }
-            insertIntoInSolutions("regions_in_solutions", ids, idSolution);
-        }
+    // ids of the solution per link table, in the order of IN_SOLUTIONS
+    private Map<String, List<?>> getInSolutions(DtoSolution solution) {
+        Map<String, List<?>> links = new LinkedHashMap<>();
+        links.put("business_models_in_solutions", solution.getBusinessModels());
+        links.put("channels_in_solutions", solution.getChannels());
+        links.put("countries_in_solutions", solution.getCountries());
+        links.put("languages_in_solutions",
+                concat(solution.getLanguages(), references.getLanguages(solution.getOtherLanguages())));
+        links.put("regions_in_solutions",
+                concat(solution.getRegions(), references.getRegions(solution.getOtherRegions())));
+        links.put("sectors_in_solutions", solution.getSectors());
+        links.put("sub_use_cases_in_solutions",
+                concat(List.of(solution.getPrimarysubusecase()), solution.getSubUseCases()));
+        links.put("tags_in_solutions", solution.getTags());
+        links.put("technologies_in_solutions", solution.getTechnologies());
+        return links;
     }
 
     private void insertIntoInSolutionsAndTranslations(int id, DtoSolution solution) {
-        em.createNativeQuery("INSERT INTO daghub_dataentry.sub_use_cases_in_solutions VALUES (?,?)")
-                .setParameter(1, solution.getPrimarysubusecase()).setParameter(2, id).executeUpdate();
-        insertIntoInSolutions("business_models_in_solutions", solution.getBusinessModels(), id);
-        insertIntoInSolutions("channels_in_solutions", solution.getChannels(), id);
-        insertIntoInSolutions("countries_in_solutions", solution.getCountries(), id);
-        insertIntoInSolutions("languages_in_solutions", solution.getLanguages(), id);
-        insertIntoInSolutions("regions_in_solutions", solution.getRegions(), id);
-        insertIntoInSolutions("sectors_in_solutions", solution.getSectors(), id);
-        insertIntoInSolutions("sub_use_cases_in_solutions", solution.getSubUseCases(), id);
-        insertIntoInSolutions("tags_in_solutions", solution.getTags(), id);
-        insertIntoInSolutions("technologies_in_solutions", solution.getTechnologies(), id);
-
+        getInSolutions(solution).forEach((table, ids) -> insertIntoInSolutions(table, ids, id));
         insertIntoTranslations("solution_translations", id, solution.getTranslations());
-        insertIntoLanguages(id, solution.getOtherLanguages());
-        insertIntoRegions(id, solution.getOtherRegions());
+    }
+
+    // stored ids (as text) of the solution per link table, read in one query
+    private Map<String, Set<String>> findInSolutions(int idSolution) {
+        Map<String, Set<String>> links = new HashMap<>();
+        IN_SOLUTIONS.keySet().forEach(table -> links.put(table, new HashSet<>()));
+        String sql = IN_SOLUTIONS.entrySet().stream()
+                .map(link -> "SELECT '" + link.getKey() + "', CAST(" + link.getValue() + " AS text)"
+                        + " FROM daghub_dataentry." + link.getKey() + " WHERE solution_id=:id")
+                .collect(Collectors.joining(" UNION ALL "));
+        for (Object[] row : (List<Object[]>) em.createNativeQuery(sql).setParameter("id", idSolution)
+                .getResultList())
+            links.get(row[0]).add((String) row[1]);
+        return links;
+    }
+
+    private int deleteFromInSolutions(String table, int idSolution, Collection<?> ids) {
+        log.info("==> deleteFrom " + table + " " + ids + " " + idSolution);
+        if (ids.isEmpty())
+            return 0;
+        return createNativeUpdate(table, "DELETE FROM daghub_dataentry." + table + " WHERE solution_id=:idSolution AND "
+                + IN_SOLUTIONS.get(table) + " = ANY(CAST(:ids AS "
+                + (table.equals("countries_in_solutions") ? "text" : "int") + "[]))")
+                .setParameter("idSolution", idSolution).setParameter("ids", SqlArray.of(ids)).executeUpdate();
+    }
+
+    /**
+     * Writes only the difference between the stored and the given links and
+     * translations of the solution, instead of deleting and inserting all of them.
+     */
+    private void updateInSolutionsAndTranslations(int id, DtoSolution solution) {
+        int inserted = 0;
+        int deleted = 0;
+        int updated = 0;
+        Map<String, Set<String>> stored = findInSolutions(id);
+        for (Map.Entry<String, List<?>> link : getInSolutions(solution).entrySet()) {
+            String table = link.getKey();
+            SolutionDiff<Object> diff = SolutionDiff.links(stored.get(table), link.getValue(),
+                    table.equals("countries_in_solutions"));
+            deleted += deleteFromInSolutions(table, id, diff.getDelete());
+            insertIntoInSolutions(table, diff.getInsert(), id);
+            inserted += diff.getInsert().size();
+        }
+
+        Map<Integer, String> storedTranslations = new HashMap<>();
+        for (Object[] row : (List<Object[]>) em.createNativeQuery("SELECT language_id, translation"
+                + " FROM daghub_dataentry.solution_translations WHERE solution_id=:id").setParameter("id", id)
+                .getResultList())
+            storedTranslations.put((Integer) row[0], (String) row[1]);
+        SolutionDiff<DtoTranslation> translations = SolutionDiff.translations(storedTranslations,
+                solution.getTranslations());
+        if (!translations.getDelete().isEmpty())
+            deleted += createNativeUpdate("solution_translations", "DELETE FROM daghub_dataentry.solution_translations"
+                    + " WHERE solution_id=:id AND language_id = ANY(CAST(:languages AS int[]))")
+                    .setParameter("id", id).setParameter("languages", SqlArray.of(translations.getDelete()))
+                    .executeUpdate();
+        for (DtoTranslation translation : translations.getUpdate())
+            updated += createNativeUpdate("solution_translations", "UPDATE daghub_dataentry.solution_translations"
+                    + " SET translation=:translation WHERE solution_id=:id AND language_id=:language")
+                    .setParameter("translation", translation.getTranslation() != null
+                            ? translation.getTranslation()
+                            : new TypedParameterValue(StringType.INSTANCE, null))
+                    .setParameter("id", id).setParameter("language", translation.getLanguage())
+                    .executeUpdate();
+        insertIntoTranslations("solution_translations", id, translations.getInsert());
+        inserted += translations.getInsert().size();
+
+        log.info("==> updateInSolutionsAndTranslations " + id + " inserted " + inserted + " deleted " + deleted
+                + " updated " + updated);
+        recordRows("insert", inserted);
+        recordRows("delete", deleted);
+        recordRows("update", updated);
+    }
+
+    private void recordRows(String operation, int rows) {
+        DistributionSummary.builder("dataentry.solution.update.rows")
+                .description("Link and translation rows written per solution update")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(rows);
     }
 
     private void deleteFromTranslations(String table, String column, int id) {
         log.info("==> deleteFrom " + table + " " + column + " " + id);
-        em.createNativeQuery("DELETE FROM daghub_dataentry." + table + " WHERE " + column + "=:id")
+        createNativeUpdate(table, "DELETE FROM daghub_dataentry." + table + " WHERE " + column + "=:id")
                 .setParameter("id", id).executeUpdate();
     }
 
     private void deleteFromInSolutions(String table, int idSolution) {
         log.info("==> deleteFrom " + table + " solution_id " + idSolution);
-        em.createNativeQuery("DELETE FROM daghub_dataentry." + table + " WHERE solution_id=:idSolution")
+        createNativeUpdate(table, "DELETE FROM daghub_dataentry." + table + " WHERE solution_id=:idSolution")
                 .setParameter("idSolution", idSolution).executeUpdate();
     }
 
     private void deleteFromInSolutionsAndTranslations(int id) {
-        deleteFromInSolutions("business_models_in_solutions", id);
-        deleteFromInSolutions("channels_in_solutions", id);
-        deleteFromInSolutions("countries_in_solutions", id);
-        deleteFromInSolutions("languages_in_solutions", id);
-        deleteFromInSolutions("regions_in_solutions", id);
-        deleteFromInSolutions("sectors_in_solutions", id);
-        deleteFromInSolutions("sub_use_cases_in_solutions", id);
-        deleteFromInSolutions("tags_in_solutions", id);
-        deleteFromInSolutions("technologies_in_solutions", id);
+        IN_SOLUTIONS.keySet().forEach(table -> deleteFromInSolutions(table, id));
         deleteFromTranslations("solution_translations", "solution_id", id);
     }
 
@@ -705,22 +822,24 @@ public class DataEntryService {
                     && (entity.equals("language")
                             || em.createNativeQuery("SELECT id FROM daghub_dataentry.organisations"
                                     + " WHERE hqregion_id=:id").setParameter("id", id).getResultList().isEmpty()))
-                em.createNativeQuery("DELETE FROM daghub_dataentry." + entity + "s WHERE id=:id").setParameter("id", id)
+                createNativeUpdate(entity + "s", "DELETE FROM daghub_dataentry." + entity + "s WHERE id=:id").setParameter("id", id)
                         .executeUpdate();
     }
 
-    private String[] findOwners() {
+    private Integer[] findOwners() {
         List<String> owners = repoOrganisation.findOwners();
         if (owners.isEmpty())
-            return new String[] { Integer.toString(getAuthUser().getId()) };
+            return new Integer[] { getAuthPrincipal().getId() };
         else
-            return owners.get(0).replaceFirst("\\{", "").replaceFirst("}", "").split(",");
+            return Arrays.stream(owners.get(0).replaceFirst("\\{", "").replaceFirst("}", "").split(","))
+                    .map(Integer::valueOf).toArray(Integer[]::new);
     }
 
     @Transactional
     public ResponseEntity<DtoResponse> postOrganisation(DtoOrganisation organisation) {
-        String[] owners = findOwners();
-        Timestamp datemodifiedowner = (getAuthUser().getId() > 9999) ? new Timestamp(System.currentTimeMillis()) : null;
+        Integer[] owners = findOwners();
+        AuthUser user = getAuthPrincipal();
+        Timestamp datemodifiedowner = (user.getId() > 9999) ? new Timestamp(System.currentTimeMillis()) : null;
         int id = repoOrganisation.save(new Organisation(organisation.getName(), organisation.getDescription(),
                 organisation.getUrl(), organisation.getFounded(),
                 repoOrganisationType.findById(organisation.getOrganisationtype()).get(),
@@ -731,6 +850,7 @@ public class DataEntryService {
                 datemodifiedowner))
                 .getId();
         log.info("==> postOrganisation " + id + " " + organisation);
+        ownership.addOrganisation(user, id, owners);
         insertIntoTranslations("organisation_translations", id, organisation.getTranslations());
         return ResponseEntity.status(HttpStatus.CREATED).body(new DtoResponse(id,
                 HttpStatus.CREATED.value(), "Organisation " + id + " created", null));
@@ -738,11 +858,11 @@ public class DataEntryService {
 
     private void updateOrganisation(int id, DtoOrganisation organisation) {
         log.info("==> updateOrganisation " + id);
-        em.createNativeQuery("UPDATE daghub_dataentry.organisations SET "
+        createNativeUpdate("organisations", "UPDATE daghub_dataentry.organisations SET "
                 + "name=:name,description=:description,url=:url,organisationtype_id=:organisationtype,"
                 + "founded=:founded,hqcountry_id=:hqcountry,hqregion_id=:hqregion,"
                 + "business_growth_stage_id=:businessGrowthStage,business_funding_stage_id=:businessFundingStage,datemodified = now()"
-                + ((getAuthUser().getId() > 9999) ? ",datemodifiedowner = now()" : "")
+                + ((getAuthPrincipal().getId() > 9999) ? ",datemodifiedowner = now()" : "")
                 + " WHERE id=:id")
                 .setParameter("name", organisation.getName())
                 .setParameter("description", organisation.getDescription() != null ? organisation.getDescription()
@@ -769,14 +889,16 @@ public class DataEntryService {
         updateOrganisation(id, organisation);
         deleteFromTranslations("organisation_translations", "organisation_id", id);
         insertIntoTranslations("organisation_translations", id, organisation.getTranslations());
+        refreshOrganisationFacets(id);
         return ResponseEntity.ok(new DtoResponse(id, HttpStatus.OK.value(), "Organisation " + id + " updated", null));
     }
 
     @Transactional
     public ResponseEntity<DtoResponse> postSolution(DtoSolution solution) {
         Organisation organisation = repoOrganisation.findById(solution.getOrganisation()).get();
-        int idOwner = getAuthUser().getId();
-        String[] owners = organisation.addOwner(idOwner);
+        AuthUser user = getAuthPrincipal();
+        int idOwner = user.getId();
+        Integer[] owners = organisation.addOwner(idOwner);
         Timestamp datemodifiedowner = (idOwner > 9999) ? new Timestamp(System.currentTimeMillis()) : null;
         int id = repoSolution.save(new Solution(solution.getName(), solution.getDescription(),
                 solution.getUrl(), solution.getLaunch(), solution.getPlatform(), solution.getBundling(),
@@ -787,20 +909,22 @@ public class DataEntryService {
                 repoSubUseCase.findById(solution.getPrimarysubusecase()).get(), owners, datemodifiedowner))
                 .getId();
         log.info("==> postSolution " + id + " " + solution);
+        ownership.addSolution(user, id, owners);
         insertIntoInSolutionsAndTranslations(id, solution);
+        refreshFacets(List.of(id));
         return ResponseEntity.status(HttpStatus.CREATED).body(new DtoResponse(id,
                 HttpStatus.CREATED.value(), "Solution " + id + " created", null));
     }
 
     private void updateSolution(int id, DtoSolution solution) {
         log.info("==> updateSolution " + id);
-        em.createNativeQuery("UPDATE daghub_dataentry.solutions SET "
+        createNativeUpdate("solutions", "UPDATE daghub_dataentry.solutions SET "
                 + "name=:name,description=:description,url=:url,organisation_id=:organisation,"
                 + "launch=:launch,platform=:platform,bundling=:bundling,primarysubusecase_id=:usecase,"
                 + "registeredusers=:registeredusers,activeusers=:activeusers,shfusers=:shfusers,womenusers=:womenusers,youthusers=:youthusers,"
                 + "revenue=:revenue,yieldlowerbound=:yieldlowerbound,yieldupperbound=:yieldupperbound,"
                 + "incomelowerbound=:incomelowerbound,incomeupperbound=:incomeupperbound,datemodified = now()"
-                + ((getAuthUser().getId() > 9999) ? ",datemodifiedowner = now()" : "")
+                + ((getAuthPrincipal().getId() > 9999) ? ",datemodifiedowner = now()" : "")
                 + " WHERE id=:id")
                 .setParameter("name", solution.getName())
                 .setParameter("description", solution.getDescription())
@@ -850,16 +974,26 @@ public class DataEntryService {
         List<Integer> listLanguages = getRelatedEntity("language", id);
         List<Integer> listRegions = getRelatedEntity("region", id);
         updateSolution(id, solution);
-        deleteFromInSolutionsAndTranslations(id);
-        insertIntoInSolutionsAndTranslations(id, solution);
+        updateInSolutionsAndTranslations(id, solution);
         deleteNotRelatedEntity("language", listLanguages);
         deleteNotRelatedEntity("region", listRegions);
+        refreshFacets(List.of(id));
         return ResponseEntity.ok(new DtoResponse(id, HttpStatus.OK.value(), "Solution " + id + " updated", null));
     }
 
+    // the read model of the dashboard (solution_facets) follows the solutions in the same transaction
+    private void refreshFacets(List<Integer> solutions) {
+        log.info("==> refreshFacets " + solutions + " " + repoSolution.refreshFacets(SqlArray.of(solutions)));
+    }
+
+    private void refreshOrganisationFacets(int organisation) {
+        log.info("==> refreshFacets organisation " + organisation + " "
+                + repoSolution.refreshFacetsByOrganisationId(organisation));
+    }
+
     private void updateDateRemoved(String table, int id) {
         log.info("==> updateDateRemoved " + table + " " + id);
-        em.createNativeQuery("UPDATE daghub_dataentry." + table + " SET dateremoved = now() WHERE id=:id")
+        createNativeUpdate(table, "UPDATE daghub_dataentry." + table + " SET dateremoved = now() WHERE id=:id")
                 .setParameter("id", id).executeUpdate();
     }
 
@@ -888,57 +1022,145 @@ public class DataEntryService {
         // deleteNotRelatedEntity("language", listLanguages);
         // deleteNotRelatedEntity("region", listRegions);
         updateDateRemoved("solutions", id);
+        refreshFacets(List.of(id));
         return ResponseEntity.status(HttpStatus.NO_CONTENT).body(null);
     }
 
-    @Transactional
     public Object postFileOrganisations(MultipartFile file)
             throws StreamReadException, DatabindException, IOException {
-        List<DtoOrganisation> organisations = mapper.readValue(file.getBytes(),
-                new TypeReference<List<DtoOrganisation>>() {
-                });
-        List<Integer> ids = new ArrayList<>();
-        for (DtoOrganisation organisation : organisations) {
-            if (!organisation.isValid())
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new DtoResponse(null,
-                        HttpStatus.BAD_REQUEST.value(), null,
-                        "NOT NULL: name, url, organisationtype, hqcountry, hqregion, businessFundingStage, businessGrowthStage"));
-            if (organisation.getId() != null && repoOrganisation.existsById(organisation.getId())) {
-                ResponseEntity<DtoResponse> response = putOrganisation(organisation.getId(), organisation);
-                if (response.getStatusCode() == HttpStatus.FORBIDDEN)
-                    return response;
-                ids.add(organisation.getId());
-            } else {
-                ids.add((Integer) (postOrganisation(organisation).getBody().getValue()));
+        return importFile(file, DtoOrganisation.class, "organisations", (organisations, ids) -> {
+            for (DtoOrganisation organisation : organisations)
+                if (!organisation.isValid())
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new DtoResponse(ids,
+                            HttpStatus.BAD_REQUEST.value(), null,
+                            "NOT NULL: name, url, organisationtype, hqcountry, hqregion, businessFundingStage, businessGrowthStage"));
+            Set<Integer> existing = findExistingIds("organisations",
+                    organisations.stream().map(DtoOrganisation::getId).collect(Collectors.toList()));
+            for (DtoOrganisation organisation : organisations) {
+                if (existing.contains(organisation.getId())) {
+                    ResponseEntity<DtoResponse> response = putOrganisation(organisation.getId(), organisation);
+                    if (response.getStatusCode() == HttpStatus.FORBIDDEN)
+                        return response;
+                    ids.add(organisation.getId());
+                } else {
+                    ids.add((Integer) (postOrganisation(organisation).getBody().getValue()));
+                }
             }
-        }
-        return ids;
+            return null;
+        });
     }
 
-    @Transactional
     public Object postFileSolutions(MultipartFile file)
             throws StreamReadException, DatabindException, IOException {
-        List<DtoSolution> solutions = mapper.readValue(file.getBytes(), new TypeReference<List<DtoSolution>>() {
+        return importFile(file, DtoSolution.class, "solutions", (solutions, ids) -> {
+            for (DtoSolution solution : solutions)
+                if (!solution.isValid())
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new DtoResponse(ids,
+                            HttpStatus.BAD_REQUEST.value(), null,
+                            "NOT NULL, NOT EMPTY: name, description, url, organisation, launch, sector, primarysubusecase,"
+                                    + " businessModels, channels, countries, languages, technologies"));
+            references.resolve(solutions);
+            Set<Integer> existing = findExistingIds("solutions",
+                    solutions.stream().map(DtoSolution::getId).collect(Collectors.toList()));
+            for (DtoSolution solution : solutions) {
+                if (existing.contains(solution.getId())) {
+                    ResponseEntity<DtoResponse> response = putSolution(solution.getId(), solution);
+                    if (response.getStatusCode() == HttpStatus.FORBIDDEN)
+                        return response;
+                    ids.add(solution.getId());
+                } else {
+                    ids.add((Integer) (postSolution(solution).getBody().getValue()));
+                }
+            }
+            return null;
         });
+    }
+
+    private interface ChunkWriter<T> {
+        // null when the chunk is written, otherwise the error response
+        ResponseEntity<DtoResponse> write(List<T> chunk, List<Integer> ids);
+    }
+
+    /**
+     * Reads the JSON array of the file entry by entry and writes it in chunks of
+     * dataentry.import.chunk entries, each chunk in its own transaction. A chunk
+     * with an error is rolled back and ends the import; the chunks before it stay
+     * written, as they do when an entry is not an object or the array is followed
+     * by more content. The progress is sent to the user after every chunk.
+     */
+    private <T> Object importFile(MultipartFile file, Class<T> type, String entity, ChunkWriter<T> writer)
+            throws IOException {
+        log.info("==> importFile " + entity + " " + file.getOriginalFilename() + " " + file.getSize());
+        String username = getAuthUsername();
         List<Integer> ids = new ArrayList<>();
-        for (DtoSolution solution : solutions) {
-            if (!solution.isValid())
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new DtoResponse(null,
-                        HttpStatus.BAD_REQUEST.value(), null,
-                        "NOT NULL, NOT EMPTY: name, description, url, organisation, launch, sector, primarysubusecase,"
-                                + " businessModels, channels, countries, languages, technologies"));
-            if (solution.getId() != null && repoSolution.existsById(solution.getId())) {
-                ResponseEntity<DtoResponse> response = putSolution(solution.getId(), solution);
-                if (response.getStatusCode() == HttpStatus.FORBIDDEN)
-                    return response;
-                ids.add(solution.getId());
-            } else {
-                ids.add((Integer) (postSolution(solution).getBody().getValue()));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try (JsonParser parser = mapper.getFactory().createParser(file.getInputStream())) {
+            outcome = "rejected";
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                return ResponseEntity.badRequest().body(new DtoResponse(null, HttpStatus.BAD_REQUEST.value(),
+                        null, "JSON array expected"));
+            List<T> chunk = new ArrayList<>(importChunk);
+            int processed = 0;
+            boolean end = false;
+            while (!end) {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT)
+                    chunk.add(mapper.readValue(parser, type));
+                else if (token == JsonToken.END_ARRAY && parser.nextToken() == null)
+                    end = true;
+                else
+                    // the chunks before stay written, their ids are returned
+                    return ResponseEntity.badRequest().body(new DtoResponse(ids, HttpStatus.BAD_REQUEST.value(),
+                            null, "JSON array of objects expected"));
+                if (chunk.size() < importChunk && !end)
+                    continue;
+                if (!chunk.isEmpty()) {
+                    Timer.Sample chunkSample = Timer.start(meterRegistry);
+                    ResponseEntity<DtoResponse> response = transaction.execute(status -> {
+                        int written = ids.size();
+                        ResponseEntity<DtoResponse> error = writer.write(chunk, ids);
+                        if (error != null) {
+                            status.setRollbackOnly();
+                            ids.subList(written, ids.size()).clear();
+                        }
+                        return error;
+                    });
+                    chunkSample.stop(importTimer("dataentry.import.chunk", "Chunks of a json file import",
+                            entity, response == null ? "written" : "rejected"));
+                    if (response != null)
+                        return response;
+                    processed += chunk.size();
+                    chunk.clear();
+                }
+                websocket.convertAndSendToUser(username, "/topic/import", new DtoImportProgress(entity, processed,
+                        parser.getCurrentLocation().getByteOffset(), file.getSize(), end));
             }
+            outcome = "imported";
+        } finally {
+            sample.stop(importTimer("dataentry.import", "Json file imports", entity, outcome));
         }
+        log.info("==> importFile " + entity + " " + ids.size() + " entries");
         return ids;
     }
 
+    private Timer importTimer(String name, String description, String entity, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("entity", entity)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private Set<Integer> findExistingIds(String table, List<Integer> ids) {
+        List<Integer> list = ids.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        if (list.isEmpty())
+            return Collections.emptySet();
+        return new HashSet<>(em.createNativeQuery("SELECT id FROM daghub_dataentry." + table
+                + " WHERE id = ANY(CAST(:ids AS int[]))").setParameter("ids", SqlArray.of(list)).getResultList());
+    }
+
     public Object getUserSolutions(String email, String company) {
         if (org.apache.commons.validator.routines.EmailValidator.getInstance().isValid(email))
             return repoSolution.findByEmailOrCompany(email.split("@")[1], company);
@@ -953,7 +1175,7 @@ public class DataEntryService {
         for (List<Object> entity : list) {
             String url = ((String) entity.get(1));
             if (!url.equals(url.trim()))
-                em.createNativeQuery("UPDATE daghub_dataentry." + table + " SET url=:url WHERE id=:id")
+                createNativeUpdate(table, "UPDATE daghub_dataentry." + table + " SET url=:url WHERE id=:id")
                         .setParameter("url", url.trim())
                         .setParameter("id", entity.get(0))
                         .executeUpdate();
@@ -965,83 +1187,37 @@ public class DataEntryService {
         trimUrl(repoOrganisation.findIdAndUrl(), "organisations");
     }
 
-    @Transactional
     private void checkUrl(List<List<Object>> list, String table) {
         log.info("==> checkUrl " + table);
-        Thread thread = new Thread() {
-            @Transactional
-            public void run() {
-                List<String> result = new ArrayList<>();
-                for (List<Object> entity : list) {
-                    int id = (int) entity.get(0);
-                    String url = ((String) entity.get(1));
-                    try {
-                        // ResponseEntity<String> response = restTemplate.getForEntity(url, String.class);
-                        restTemplate.headForHeaders(url);
-                    } catch (Exception e) {
-                        // if (e instanceof org.springframework.web.client.ResourceAccessException)
-                        // if (e instanceof org.springframework.web.client.HttpClientErrorException)
-                        // if (e instanceof org.springframework.web.client.HttpServerErrorException)
-                        if (e instanceof org.springframework.web.client.HttpClientErrorException
-                                && !e.getLocalizedMessage().contains("400")
-                                && !e.getLocalizedMessage().contains("404")) {
-                            log.warn("==> checkUrl 400/404 " + table + " " + id + " " + url);
-                            continue;
-                        }
-                        if (url.startsWith("https://")) {
-                            url = url.replaceFirst("https://", "http://");
-                            try {
-                                restTemplate.headForHeaders(url);
-                                log.warn("==> checkUrl https2http " + table + " " + id + " " + url);
-                                em.createNativeQuery("UPDATE daghub_dataentry." + table + " SET url=:url WHERE id=:id")
-                                        .setParameter("url", url.trim())
-                                        .setParameter("id", id)
-                                        .executeUpdate();
-                                continue;
-                            } catch (Exception e2) {
-                                if (e2 instanceof org.springframework.web.client.HttpClientErrorException
-                                        && !e2.getLocalizedMessage().contains("400")
-                                        && !e2.getLocalizedMessage().contains("404")) {
-                                    log.warn("==> checkUrl 400/404 " + table + " " + id + " " + url);
-                                    continue;
-                                }
-                                url = url.replaceFirst("http://", "https://");
-                            }
-                        } else if (url.startsWith("http://")) {
-                            url = url.replaceFirst("http://", "https://");
-                            try {
-                                restTemplate.headForHeaders(url);
-                                log.warn("==> checkUrl http2https " + table + " " + id + " " + url);
-                                em.createNativeQuery("UPDATE daghub_dataentry." + table + " SET url=:url WHERE id=:id")
-                                        .setParameter("url", url.trim())
-                                        .setParameter("id", id)
-                                        .executeUpdate();
-                                continue;
-                            } catch (Exception e2) {
-                                if (e2 instanceof org.springframework.web.client.HttpClientErrorException
-                                        && !e2.getLocalizedMessage().contains("400")
-                                        && !e2.getLocalizedMessage().contains("404")) {
-                                    log.warn("==> checkUrl 400/404 " + table + " " + id + " " + url);
-                                    continue;
-                                }
-                                url = url.replaceFirst("https://", "http://");
-                            }
-                        }
-                        log.info("==> checkUrl " + table + " " + id + " " + url + " " + e.getLocalizedMessage());
-                        result.add("<br>" + id + " " + url);
-                    }
-                }
-                try {
-                    InternetAddress[] emails = InternetAddress.parse(daghubEmailAdmin);
-                    for (InternetAddress email : emails)
-                        sendEmail(email.getAddress(), "DigitalAgriHub: " + table + " broken url", result.toString(),
-                                true);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
+        urlCheckService.check(table, list).thenAccept(result -> {
+            try {
+                InternetAddress[] emails = InternetAddress.parse(daghubEmailAdmin);
+                for (InternetAddress email : emails)
+                    sendEmail(email.getAddress(), "DigitalAgriHub: " + table + " broken url", result.toString(), true);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-        };
-        thread.start();
+        });
+    }
+
+    @Scheduled(cron = "${dataentry.url-check.report}")
+    public void reportUrlChanges() {
+        List<UrlCheckService.Change> changes = urlCheckService.findChanges();
+        log.info("==> reportUrlChanges " + changes.size());
+        if (!changes.isEmpty()) {
+            String text = changes.stream().map(change -> "<br>" + change.getTable() + " " + change.getId() + " "
+                    + change.getUrl() + (change.isReachable() ? " reachable" : " broken: " + change.getError()))
+                    .collect(Collectors.joining());
+            try {
+                InternetAddress[] emails = InternetAddress.parse(daghubEmailAdmin);
+                for (InternetAddress email : emails)
+                    sendEmail(email.getAddress(), "DigitalAgriHub: url status changes", text, true);
+            } catch (Exception e) {
+                log.error("==> reportUrlChanges " + e.getMessage(), e);
+                return;
+            }
+        }
+        urlCheckService.markReported(changes);
     }
 
     @Transactional
@@ -0,0 +1,221 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.dataentry.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.annotation.RequestScope;
+
+import lombok.extern.slf4j.Slf4j;
+import nl.wur.daghub.database.repository.SqlArray;
+import nl.wur.dataentry.dto.DtoSolution;
+
+/**
+ * Ids of the free text languages and regions of solutions, memoised for the
+ * request. The descriptions not known yet are loaded with one query per type,
+ * missing ones are inserted in one statement, evicting the cached results of
+ * the reference queries.
+ */
+@Slf4j
+@Component
+@RequestScope
+public class ReferenceResolver {
+    private static final String QUERY_REGION = "reference-queries";
+
+    private @PersistenceContext EntityManager em;
+
+    private final Map<String, Integer> languages = new HashMap<>();
+    // region ids by country id and description
+    private final Map<String, Map<String, Integer>> regions = new HashMap<>();
+    private final Set<String> countries = new HashSet<>();
+
+    // resolves the references of all solutions at once, e.g. a chunk of an import
+    public void resolve(Collection<DtoSolution> solutions) {
+        List<String> otherLanguages = new ArrayList<>();
+        List<DtoSolution.DtoRegion> otherRegions = new ArrayList<>();
+        for (DtoSolution solution : solutions) {
+            if (solution.getOtherLanguages() != null)
+                otherLanguages.addAll(solution.getOtherLanguages());
+            if (solution.getOtherRegions() != null)
+                otherRegions.addAll(solution.getOtherRegions());
+        }
+        resolveLanguages(otherLanguages);
+        resolveRegions(otherRegions);
+    }
+
+    public List<Integer> getLanguages(List<String> descriptions) {
+        if (descriptions == null)
+            return new ArrayList<>();
+        resolveLanguages(descriptions);
+        return descriptions.stream().map(languages::get).collect(Collectors.toList());
+    }
+
+    public List<Integer> getRegions(List<DtoSolution.DtoRegion> dtoRegions) {
+        List<Integer> ids = new ArrayList<>();
+        if (dtoRegions == null)
+            return ids;
+        resolveRegions(dtoRegions);
+        for (DtoSolution.DtoRegion dtoRegion : dtoRegions)
+            for (String region : dtoRegion.getRegions())
+                ids.add(regions.get(dtoRegion.getCountry()).get(region));
+        return ids;
+    }
+
+    private void resolveLanguages(List<String> descriptions) {
+        Set<String> missing = descriptions.stream().filter(description -> !languages.containsKey(description))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (missing.isEmpty())
+            return;
+        log.info("==> resolveLanguages " + missing);
+        putLanguages(selectLanguages(missing));
+        missing.removeAll(languages.keySet());
+        if (missing.isEmpty())
+            return;
+        Query insert = em.createNativeQuery("INSERT INTO daghub_dataentry.languages (description) VALUES "
+                + String.join(",", Collections.nCopies(missing.size(), "(?)"))
+                + " ON CONFLICT (description) DO NOTHING RETURNING id, description");
+        int position = 1;
+        for (String description : missing)
+            insert.setParameter(position++, description);
+        putLanguages(inserted(insert.getResultList()));
+        missing.removeAll(languages.keySet());
+        // inserted meanwhile by another transaction
+        if (!missing.isEmpty())
+            putLanguages(selectLanguages(missing));
+    }
+
+    private List<?> selectLanguages(Set<String> descriptions) {
+        return em.createNativeQuery("SELECT id, description FROM daghub_dataentry.languages"
+                + " WHERE description = ANY(CAST(:descriptions AS text[]))")
+                .setParameter("descriptions", SqlArray.of(descriptions)).getResultList();
+    }
+
+    private void putLanguages(List<?> rows) {
+        for (Object row : rows)
+            languages.put((String) ((Object[]) row)[1], ((Number) ((Object[]) row)[0]).intValue());
+    }
+
+    private void resolveRegions(List<DtoSolution.DtoRegion> dtoRegions) {
+        Map<String, Set<String>> missing = new HashMap<>();
+        for (DtoSolution.DtoRegion dtoRegion : dtoRegions) {
+            Map<String, Integer> known = regions.getOrDefault(dtoRegion.getCountry(), Collections.emptyMap());
+            for (String region : dtoRegion.getRegions())
+                if (!known.containsKey(region))
+                    missing.computeIfAbsent(dtoRegion.getCountry(), country -> new LinkedHashSet<>()).add(region);
+        }
+        if (missing.isEmpty())
+            return;
+        log.info("==> resolveRegions " + missing);
+        checkCountries(missing.keySet());
+        selectRegions(missing);
+        if (missing.isEmpty())
+            return;
+        int count = missing.values().stream().mapToInt(Set::size).sum();
+        Query insert = em.createNativeQuery("INSERT INTO daghub_dataentry.regions (country_id, description) VALUES "
+                + String.join(",", Collections.nCopies(count, "(?,?)"))
+                + " ON CONFLICT (country_id, description) DO NOTHING RETURNING id, country_id, description");
+        int position = 1;
+        for (Map.Entry<String, Set<String>> country : missing.entrySet())
+            for (String region : country.getValue())
+                insert.setParameter(position++, country.getKey()).setParameter(position++, region);
+        putRegions(inserted(insert.getResultList()), missing);
+        // inserted meanwhile by another transaction
+        if (!missing.isEmpty())
+            selectRegions(missing);
+    }
+
+    private void selectRegions(Map<String, Set<String>> missing) {
+        putRegions(em.createNativeQuery("SELECT id, country_id, description FROM daghub_dataentry.regions"
+                + " WHERE country_id = ANY(CAST(:countries AS text[]))"
+                + " AND description = ANY(CAST(:descriptions AS text[]))")
+                .setParameter("countries", SqlArray.of(missing.keySet()))
+                .setParameter("descriptions",
+                        SqlArray.of(missing.values().stream().flatMap(Set::stream).collect(Collectors.toSet())))
+                .getResultList(), missing);
+    }
+
+    // stores the ids of the rows and removes them from missing
+    private void putRegions(List<?> rows, Map<String, Set<String>> missing) {
+        for (Object row : rows) {
+            Object[] values = (Object[]) row;
+            String country = (String) values[1];
+            String description = (String) values[2];
+            regions.computeIfAbsent(country, key -> new HashMap<>()).put(description,
+                    ((Number) values[0]).intValue());
+            Set<String> descriptions = missing.get(country);
+            if (descriptions != null && descriptions.remove(description) && descriptions.isEmpty())
+                missing.remove(country);
+        }
+    }
+
+    // the cached results of the findAll queries miss the inserted rows
+    private List<?> inserted(List<?> rows) {
+        if (rows.isEmpty())
+            return rows;
+        Cache cache = em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        cache.evictQueryRegion(QUERY_REGION);
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.evictQueryRegion(QUERY_REGION);
+                }
+            });
+        return rows;
+    }
+
+    private void checkCountries(Set<String> ids) {
+        Set<String> unknown = new HashSet<>(ids);
+        unknown.removeAll(countries);
+        if (unknown.isEmpty())
+            return;
+        List<?> found = em.createNativeQuery("SELECT id FROM daghub_dataentry.countries"
+                + " WHERE id = ANY(CAST(:ids AS text[]))").setParameter("ids", SqlArray.of(unknown)).getResultList();
+        found.forEach(id -> countries.add((String) id));
+        unknown.removeAll(countries);
+        if (!unknown.isEmpty())
+            throw new NoSuchElementException("Country not found: " + unknown);
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.ToString;
+import nl.wur.dataentry.dto.DtoTranslation;
+
+/**
+ * Rows to insert, update and delete to go from the stored to the given links
+ * or translations of a solution.
+ */
+@Getter
+@ToString
+public class SolutionDiff<T> {
+    private final List<T> insert = new ArrayList<>();
+    private final List<T> update = new ArrayList<>();
+    private final List<Object> delete = new ArrayList<>();
+
+    /**
+     * Ids of one link table; the stored ids are read as text, the ids to delete
+     * are given back as text or as integers depending on the column.
+     */
+    public static SolutionDiff<Object> links(Set<String> stored, List<?> given, boolean text) {
+        SolutionDiff<Object> diff = new SolutionDiff<>();
+        Map<String, Object> ids = new LinkedHashMap<>();
+        if (given != null)
+            given.forEach(value -> ids.putIfAbsent(String.valueOf(value), value));
+        ids.forEach((key, value) -> {
+            if (!stored.contains(key))
+                diff.insert.add(value);
+        });
+        stored.stream().filter(value -> !ids.containsKey(value))
+                .forEach(value -> diff.delete.add(text ? value : Integer.valueOf(value)));
+        return diff;
+    }
+
+    // translations by language; a language given twice keeps the last translation
+    public static SolutionDiff<DtoTranslation> translations(Map<Integer, String> stored,
+            List<DtoTranslation> given) {
+        SolutionDiff<DtoTranslation> diff = new SolutionDiff<>();
+        Map<Integer, DtoTranslation> translations = new LinkedHashMap<>();
+        if (given != null)
+            given.forEach(translation -> translations.put(translation.getLanguage(), translation));
+        stored.keySet().stream().filter(language -> !translations.containsKey(language)).forEach(diff.delete::add);
+        for (DtoTranslation translation : translations.values()) {
+            if (!stored.containsKey(translation.getLanguage()))
+                diff.insert.add(translation);
+            else if (!Objects.equals(stored.get(translation.getLanguage()), translation.getTranslation()))
+                diff.update.add(translation);
+        }
+        return diff;
+    }
+}
@@ -0,0 +1,244 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.dataentry.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Url checks of solutions and organisations in the background, one table at a
+ * time. Results are stored in url_checks; urls found reachable within the
+ * recheck period are not requested again. Every interval a small slice of the
+ * urls is checked: urls never checked, of entries modified since their check or
+ * checked before the recheck period. The reachability last reported by email is
+ * kept to report status changes only.
+ */
+@Slf4j
+@Service
+public class UrlCheckService {
+    private static final String[] TABLES = { "solutions", "organisations" };
+
+    private @Autowired JdbcTemplate jdbcTemplate;
+    private @Autowired MeterRegistry meterRegistry;
+    private @Value("${dataentry.url-check.threads}") int threads;
+    private @Value("${dataentry.url-check.per-host}") int perHost;
+    private @Value("${dataentry.url-check.connect-timeout}") Duration connectTimeout;
+    private @Value("${dataentry.url-check.read-timeout}") Duration readTimeout;
+    private @Value("${dataentry.url-check.recheck}") Duration recheck;
+    private @Value("${dataentry.url-check.dns-ttl}") Duration dnsTtl;
+    private @Value("${dataentry.url-check.enabled}") boolean enabled;
+    private @Value("${dataentry.url-check.slice}") int slice;
+
+    private UrlChecker checker;
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "url-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean sliceRunning = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        checker = new UrlChecker(threads, perHost, connectTimeout, readTimeout, dnsTtl);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        runner.shutdownNow();
+        checker.shutdown();
+    }
+
+    /**
+     * Checks the urls of the (id, url) list of the table. Urls answering with the
+     * other scheme are updated; the result lists the broken ones as "<br>id url".
+     */
+    public CompletableFuture<List<String>> check(String table, List<List<Object>> list) {
+        return CompletableFuture.supplyAsync(() -> run(table, list, true), runner);
+    }
+
+    @Scheduled(initialDelayString = "${dataentry.url-check.interval}",
+            fixedDelayString = "${dataentry.url-check.interval}")
+    public void checkSlice() {
+        if (!enabled || !sliceRunning.compareAndSet(false, true))
+            return;
+        // handed to the url-check thread, the scheduler thread shared by all @Scheduled methods is not blocked;
+        // a slice still running when the next one is due skips that one
+        runner.execute(() -> {
+            try {
+                for (String table : TABLES) {
+                    List<List<Object>> list = findDue(table, slice);
+                    if (!list.isEmpty())
+                        run(table, list, false);
+                }
+            } catch (RuntimeException e) {
+                log.error("==> checkSlice " + e.getMessage());
+            } finally {
+                sliceRunning.set(false);
+            }
+        });
+    }
+
+    private List<List<Object>> findDue(String table, int limit) {
+        return jdbcTemplate.query("SELECT e.id, e.url FROM daghub_dataentry." + table + " e"
+                + " LEFT JOIN daghub_dataentry.url_checks c ON c.url = e.url"
+                + " WHERE e.dateremoved IS NULL AND e.url IS NOT NULL"
+                + " AND (c.url IS NULL OR c.datechecked < ? OR e.datemodified > c.datechecked)"
+                + " ORDER BY c.datechecked NULLS FIRST, e.id LIMIT ?",
+                (row, i) -> List.<Object>of(row.getInt("id"), row.getString("url")),
+                new Timestamp(System.currentTimeMillis() - recheck.toMillis()), limit);
+    }
+
+    private List<String> run(String table, List<List<Object>> list, boolean skipReachable) {
+        long start = System.currentTimeMillis();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<String, UrlChecker.Result> results = skipReachable
+                ? findReachable(new Timestamp(System.currentTimeMillis() - recheck.toMillis()))
+                : new HashMap<>();
+        List<String> urls = list.stream().map(entity -> (String) entity.get(1)).filter(Objects::nonNull)
+                .filter(url -> !results.containsKey(url)).distinct().collect(Collectors.toList());
+        Map<String, UrlChecker.Result> checked = checker.check(urls);
+        save(checked.values());
+        for (UrlChecker.Result result : checked.values())
+            Counter.builder("dataentry.url.check.urls")
+                    .description("Urls requested by the url check")
+                    .tag("table", table)
+                    .tag("reachable", String.valueOf(result.isReachable()))
+                    .register(meterRegistry)
+                    .increment();
+        results.putAll(checked);
+
+        List<String> broken = new ArrayList<>();
+        for (List<Object> entity : list) {
+            int id = (int) entity.get(0);
+            String url = (String) entity.get(1);
+            UrlChecker.Result result = url == null ? null : results.get(url);
+            if (result == null)
+                continue;
+            if (!result.isReachable()) {
+                log.info("==> checkUrl " + table + " " + id + " " + url + " " + result.getError());
+                broken.add("<br>" + id + " " + url);
+            } else if (result.getLocation() != null) {
+                log.warn("==> checkUrl " + table + " " + id + " " + url + " -> " + result.getLocation());
+                jdbcTemplate.update("UPDATE daghub_dataentry." + table + " SET url=? WHERE id=?",
+                        result.getLocation(), id);
+            }
+        }
+        log.info("==> checkUrl " + table + " " + list.size() + " urls, " + checked.size() + " requested, "
+                + broken.size() + " broken in " + (System.currentTimeMillis() - start) + " ms");
+        sample.stop(Timer.builder("dataentry.url.check")
+                .description("Url checks of a list of urls, on request or of a background slice")
+                .tag("table", table)
+                .tag("type", skipReachable ? "request" : "slice")
+                .register(meterRegistry));
+        return broken;
+    }
+
+    private Map<String, UrlChecker.Result> findReachable(Timestamp since) {
+        Map<String, UrlChecker.Result> results = new HashMap<>();
+        jdbcTemplate.query("SELECT url, status, location FROM daghub_dataentry.url_checks"
+                + " WHERE reachable AND datechecked > ?",
+                row -> {
+                    results.put(row.getString("url"), new UrlChecker.Result(row.getString("url"),
+                            row.getInt("status"), true, row.getString("location"), null));
+                }, since);
+        return results;
+    }
+
+    /**
+     * Urls of solutions and organisations whose reachability differs from the one
+     * last reported; new urls count as reported reachable.
+     */
+    public List<Change> findChanges() {
+        return jdbcTemplate.query(Arrays.stream(TABLES)
+                .map(table -> "SELECT '" + table + "' AS entity, e.id, c.url, c.reachable, c.error"
+                        + " FROM daghub_dataentry.url_checks c JOIN daghub_dataentry." + table + " e"
+                        + " ON e.url = c.url AND e.dateremoved IS NULL WHERE c.reachable <> c.reported")
+                .collect(Collectors.joining(" UNION ALL ")) + " ORDER BY entity, id",
+                (row, i) -> new Change(row.getString("entity"), row.getInt("id"), row.getString("url"),
+                        row.getBoolean("reachable"), row.getString("error")));
+    }
+
+    /**
+     * Marks the changes as reported and forgets the urls no longer used.
+     */
+    public void markReported(List<Change> changes) {
+        jdbcTemplate.batchUpdate("UPDATE daghub_dataentry.url_checks SET reported = ? WHERE url = ?",
+                changes.stream().map(change -> new Object[] { change.isReachable(), change.getUrl() })
+                        .collect(Collectors.toList()));
+        int deleted = jdbcTemplate.update("DELETE FROM daghub_dataentry.url_checks c WHERE "
+                + Arrays.stream(TABLES).map(table -> "NOT EXISTS (SELECT 1 FROM daghub_dataentry." + table
+                        + " e WHERE e.url = c.url)").collect(Collectors.joining(" AND ")));
+        log.info("==> markReported " + changes.size() + " changes, " + deleted + " unused urls deleted");
+    }
+
+    private void save(Collection<UrlChecker.Result> results) {
+        jdbcTemplate.batchUpdate("INSERT INTO daghub_dataentry.url_checks"
+                + " (url, status, reachable, location, error, datechecked) VALUES (?, ?, ?, ?, ?, now())"
+                + " ON CONFLICT (url) DO UPDATE SET status = EXCLUDED.status, reachable = EXCLUDED.reachable,"
+                + " location = EXCLUDED.location, error = EXCLUDED.error, datechecked = EXCLUDED.datechecked",
+                results.stream().map(result -> new Object[] { result.getUrl(), result.getStatus(),
+                        result.isReachable(), result.getLocation(), result.getError() })
+                        .collect(Collectors.toList()));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Change {
+        private String table;
+        private int id;
+        private String url;
+        private boolean reachable;
+        private String error;
+    }
+}
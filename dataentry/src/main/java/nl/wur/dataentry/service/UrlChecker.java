@@ -0,0 +1,201 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.dataentry.service;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Checks urls with HEAD requests in parallel on a bounded pool, with at most
+ * perHost requests at the same time to one host. A url is reachable unless it
+ * answers 400, 404 or 5xx, or does not answer at all; an unreachable url is
+ * tried once more with the other scheme (http/https). Host lookups are kept
+ * for dnsTtl across calls, so the slices of the background check do not
+ * resolve the same hosts again.
+ */
+public class UrlChecker {
+    private final HttpClient client;
+    private final ExecutorService executor;
+    private final int perHost;
+    private final Duration readTimeout;
+    // resolvable or not by host name, unknown hosts are retried after dnsTtl as well
+    private final Cache<String, Boolean> resolved;
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    public UrlChecker(int threads, int perHost, Duration connectTimeout, Duration readTimeout, Duration dnsTtl) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "url-checker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.perHost = perHost;
+        this.readTimeout = readTimeout;
+        this.resolved = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(dnsTtl)
+                .build();
+    }
+
+    /**
+     * Results by url, in the order of the given urls; requests to a host are
+     * limited per call.
+     */
+    public Map<String, Result> check(Collection<String> urls) {
+        Run run = new Run();
+        List<CompletableFuture<Result>> futures = urls.stream().distinct()
+                .map(url -> CompletableFuture.supplyAsync(() -> run.check(url), executor))
+                .collect(Collectors.toList());
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (CompletableFuture<Result> future : futures) {
+            Result result = future.join();
+            results.put(result.getUrl(), result);
+        }
+        return results;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static boolean isReachable(int status) {
+        return status > 0 && (status < 400 || (status < 500 && status != 400 && status != 404));
+    }
+
+    private static boolean resolve(String host) {
+        try {
+            InetAddress.getByName(host);
+            return true;
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    static String swapScheme(String url) {
+        if (url.startsWith("https://"))
+            return url.replaceFirst("https://", "http://");
+        if (url.startsWith("http://"))
+            return url.replaceFirst("http://", "https://");
+        return null;
+    }
+
+    // host limits of one call
+    private class Run {
+        private final Map<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+        private Result check(String url) {
+            URI uri;
+            try {
+                uri = URI.create(url.trim());
+            } catch (IllegalArgumentException e) {
+                return new Result(url, 0, false, null, "Invalid url");
+            }
+            if (uri.getHost() == null || uri.getScheme() == null)
+                return new Result(url, 0, false, null, "Invalid url");
+            String host = uri.getHost().toLowerCase(Locale.ROOT);
+            if (!resolved.get(host, UrlChecker::resolve))
+                return new Result(url, 0, false, null, "Unknown host " + host);
+            Result result = head(url, uri, host);
+            if (result.isReachable())
+                return result;
+            String other = swapScheme(url.trim());
+            if (other != null) {
+                Result swapped = head(url, URI.create(other), host);
+                if (swapped.isReachable())
+                    return new Result(url, swapped.getStatus(), true, other, null);
+            }
+            return result;
+        }
+
+        private Result head(String url, URI uri, String host) {
+            Semaphore semaphore = hosts.computeIfAbsent(host, key -> new Semaphore(perHost));
+            try {
+                semaphore.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Result(url, 0, false, null, "Interrupted");
+            }
+            try {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                        .timeout(readTimeout)
+                        .build();
+                int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                if (isReachable(status))
+                    return new Result(url, status, true, null, null);
+                return new Result(url, status, false, null, "HTTP " + status);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new Result(url, 0, false, null, "Interrupted");
+            } catch (Exception e) {
+                return new Result(url, 0, false, null,
+                        e.getClass().getSimpleName() + (e.getMessage() == null ? "" : " " + e.getMessage()));
+            } finally {
+                semaphore.release();
+            }
+        }
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Result {
+        private String url;
+        // 0 without response
+        private int status;
+        private boolean reachable;
+        // working url with the other scheme
+        private String location;
+        private String error;
+    }
+}
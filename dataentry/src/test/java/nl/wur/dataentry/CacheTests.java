@@ -0,0 +1,122 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+/**
+ * Tests might need to be updated
+ */
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+
+import nl.wur.daghub.database.domain.Country;
+import nl.wur.daghub.database.domain.Language;
+import nl.wur.daghub.database.repository.RepositoryCountry;
+import nl.wur.daghub.database.repository.RepositoryLanguage;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.dataentry.dto.DtoSolution;
+import nl.wur.dataentry.security.AuthUser;
+import nl.wur.dataentry.service.DataEntryService;
+
+@SpringBootTest
+class CacheTests {
+	private @Autowired DataEntryService service;
+	private @Autowired RepositoryCountry repositoryCountry;
+	private @Autowired RepositoryLanguage repositoryLanguage;
+	private @Autowired RepositorySolution repositorySolution;
+	private @Autowired EntityManagerFactory entityManagerFactory;
+
+	private Integer id;
+
+	@BeforeEach
+	private void setup() {
+		AuthUser admin = new AuthUser(User.withUsername("emailAdmin@test.com").password("password").roles("ADMIN")
+				.build(), 1, List.of(), List.of());
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities()));
+	}
+
+	@AfterEach
+	private void afterEach() {
+		if (id != null)
+			repositorySolution.delete(repositorySolution.findById(id).get());
+		SecurityContextHolder.getContext().setAuthentication(null);
+	}
+
+	@Test
+	public void testReferenceCacheSurvivesPutSolution() throws Exception {
+		DtoSolution solution = new DtoSolution();
+		solution.setName("test cache");
+		solution.setDescription("test description");
+		solution.setUrl("http://localhost");
+		solution.setOrganisation(1);
+		solution.setLaunch(2021);
+		solution.setPrimarysubusecase(1);
+		solution.setBusinessModels(List.of(1));
+		solution.setChannels(List.of(1));
+		solution.setCountries(List.of("NLD"));
+		solution.setLanguages(List.of(1));
+		solution.setSectors(List.of(1));
+		solution.setTechnologies(List.of(1));
+		id = (Integer) service.postSolution(solution).getBody().getValue();
+
+		repositoryLanguage.findById(1);
+		repositoryCountry.findById("NLD");
+		repositoryLanguage.findAll();
+		Cache cache = entityManagerFactory.getCache();
+		assertTrue(cache.contains(Language.class, 1));
+		assertTrue(cache.contains(Country.class, "NLD"));
+
+		solution.setDescription("test description updated");
+		solution.setChannels(List.of(1, 2));
+		solution.setTags(List.of(1));
+		assertEquals(HttpStatus.OK, service.putSolution(id, solution).getStatusCode());
+
+		// the native updates of the solution and its links only invalidate the regions of those tables
+		assertTrue(cache.contains(Language.class, 1));
+		assertTrue(cache.contains(Country.class, "NLD"));
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		long hits = statistics.getQueryCacheHitCount();
+		repositoryLanguage.findAll();
+		assertEquals(hits + 1, statistics.getQueryCacheHitCount());
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.ObjectPostProcessor;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.wur.daghub.database.domain.User;
+import nl.wur.daghub.database.repository.RepositoryUser;
+import nl.wur.dataentry.security.AuthUtils;
+
+class JwtCacheTests {
+    private static final String EMAIL = "owner@test.nl";
+
+    private RepositoryUser repositoryUser;
+    private UserDetailsService userDetailsService;
+    private SimpleMeterRegistry meterRegistry;
+    private AuthUtils authUtils;
+    private String jwt;
+
+    @BeforeEach
+    public void beforeEach() throws Exception {
+        repositoryUser = mock(RepositoryUser.class);
+        userDetailsService = mock(UserDetailsService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        AuthenticationManagerBuilder authMgrBuilder = new AuthenticationManagerBuilder(new ObjectPostProcessor<>() {
+            @Override
+            public <O> O postProcess(O object) {
+                return object;
+            }
+        });
+        authMgrBuilder.userDetailsService(userDetailsService);
+        authMgrBuilder.build();
+        authUtils = new AuthUtils(authMgrBuilder, userDetailsService, repositoryUser, meterRegistry);
+        ReflectionTestUtils.setField(authUtils, "signingKey", "0123456789abcdef0123456789abcdef");
+        ReflectionTestUtils.setField(authUtils, "expiration", 3600000);
+        ReflectionTestUtils.setField(authUtils, "cacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(authUtils, "cacheExpiration", 600000L);
+        authUtils.afterSingletonsInstantiated();
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_OWNER"));
+        jwt = authUtils.createJwtToken(EMAIL, new UsernamePasswordAuthenticationToken(EMAIL, null, authorities));
+        when(repositoryUser.findTokenByEmail(EMAIL)).thenReturn(jwt);
+        when(repositoryUser.findByEmail(EMAIL)).thenReturn(Optional.of(mock(User.class)));
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenReturn(
+                new org.springframework.security.core.userdetails.User(EMAIL, "", authorities));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private boolean validate(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        request.addHeader("Authorization", "Bearer " + jwt);
+        return authUtils.validateJwtToken(request, new MockHttpServletResponse());
+    }
+
+    private double count(String cache, String outcome) {
+        return meterRegistry.find("dataentry.jwt.validation").tag("cache", cache).tag("outcome", outcome).timers()
+                .stream().mapToDouble(timer -> timer.count()).sum();
+    }
+
+    @Test
+    public void testHit() {
+        assertTrue(validate("/api/user"));
+        assertTrue(validate("/api/user"));
+        assertTrue(validate("/api/user"));
+        // the token and the user are looked up once, the principal is set for every request
+        verify(repositoryUser, times(1)).findTokenByEmail(EMAIL);
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+        assertEquals(EMAIL, SecurityContextHolder.getContext().getAuthentication().getName());
+        assertEquals(1.0, count("miss", "valid"));
+        assertEquals(2.0, count("hit", "valid"));
+    }
+
+    @Test
+    public void testEvict() {
+        assertTrue(validate("/api/user"));
+        authUtils.evictJwtTokens("other@test.nl");
+        assertTrue(validate("/api/user"));
+        verify(repositoryUser, times(1)).findTokenByEmail(EMAIL);
+
+        authUtils.evictJwtTokens(EMAIL);
+        assertTrue(validate("/api/user"));
+        verify(repositoryUser, times(2)).findTokenByEmail(EMAIL);
+
+        // a token replaced in the database after the eviction is rejected
+        authUtils.evictJwtTokens(EMAIL);
+        when(repositoryUser.findTokenByEmail(EMAIL)).thenReturn("replaced");
+        assertFalse(validate("/api/user"));
+        assertEquals(1.0, count("miss", "invalid"));
+    }
+
+    @Test
+    public void testEvictDuringValidation() {
+        // the token is evicted (e.g. after commit of an owner change) while a miss is loading it
+        when(repositoryUser.findTokenByEmail(EMAIL)).thenAnswer(invocation -> {
+            authUtils.evictJwtTokens(EMAIL);
+            return jwt;
+        });
+        assertTrue(validate("/api/user"));
+        assertTrue(validate("/api/user"));
+        verify(repositoryUser, times(2)).findTokenByEmail(EMAIL);
+        assertEquals(0.0, count("hit", "valid"));
+    }
+
+    @Test
+    public void testLogout() {
+        assertTrue(validate("/api/user"));
+        // logout always checks the token against the database and removes it from the cache
+        assertTrue(validate("/api/logout"));
+        verify(repositoryUser, times(2)).findTokenByEmail(EMAIL);
+        verify(repositoryUser.findByEmail(EMAIL).get()).setToken(null);
+
+        when(repositoryUser.findTokenByEmail(EMAIL)).thenReturn(null);
+        assertFalse(validate("/api/user"));
+        assertEquals(0.0, count("hit", "valid"));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import nl.wur.daghub.database.domain.Entry;
+import nl.wur.daghub.database.domain.Solution;
+import nl.wur.daghub.database.domain.User;
+import nl.wur.daghub.database.repository.RepositoryOrganisation;
+import nl.wur.daghub.database.repository.RepositorySolution;
+import nl.wur.daghub.database.repository.RepositoryUser;
+import nl.wur.dataentry.security.AuthUser;
+import nl.wur.dataentry.security.AuthUtils;
+import nl.wur.dataentry.security.Ownership;
+
+class OwnershipTests {
+    private static final int ID = 10001;
+
+    private UserDetailsService userDetailsService;
+    private RepositorySolution repositorySolution;
+    private RepositoryUser repositoryUser;
+    private AuthUtils authUtils;
+    private Ownership ownership;
+    private AuthUser user;
+    private Authentication authentication;
+
+    @BeforeEach
+    public void beforeEach() {
+        userDetailsService = mock(UserDetailsService.class);
+        repositorySolution = mock(RepositorySolution.class);
+        repositoryUser = mock(RepositoryUser.class);
+        authUtils = mock(AuthUtils.class);
+        ownership = new Ownership(userDetailsService, repositorySolution, mock(RepositoryOrganisation.class),
+                repositoryUser, authUtils);
+        user = new AuthUser(new org.springframework.security.core.userdetails.User("owner@test.nl", "",
+                List.of(new SimpleGrantedAuthority("ROLE_OWNER"))), ID, List.of(1), List.of());
+        authentication = new TestingAuthenticationToken(user, null);
+    }
+
+    @AfterEach
+    public void afterEach() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private Entry entry(Integer... owners) {
+        Entry entry = new Solution();
+        entry.setOwners(owners);
+        return entry;
+    }
+
+    @Test
+    public void testGetAuthUser() {
+        assertSame(user, ownership.getAuthUser(authentication));
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+
+        // a plain name principal is resolved through the user details service
+        when(userDetailsService.loadUserByUsername("owner@test.nl")).thenReturn(user);
+        assertSame(user, ownership.getAuthUser(new TestingAuthenticationToken("owner@test.nl", null)));
+    }
+
+    @Test
+    public void testIsOwner() {
+        assertTrue(ownership.isOwner(authentication, entry(3, ID)));
+        assertFalse(ownership.isOwner(authentication, entry(3)));
+        assertFalse(ownership.isOwner(authentication, null));
+        // entries without owners or with a null owner
+        assertFalse(ownership.isOwner(authentication, entry((Integer[]) null)));
+        assertTrue(ownership.isOwner(authentication, entry(null, ID)));
+    }
+
+    private Solution solution(Integer... owners) {
+        Solution solution = new Solution();
+        solution.setOwners(owners);
+        return solution;
+    }
+
+    @Test
+    public void testOwnsSolution() {
+        // shared after the login: confirmed by the solution and kept in the principal
+        when(repositorySolution.findById(2)).thenReturn(Optional.of(solution(ID)));
+        assertTrue(ownership.ownsSolution(authentication, 2));
+        assertTrue(user.ownsSolution(2));
+
+        // not owned or not found
+        when(repositorySolution.findById(3)).thenReturn(Optional.of(solution(3)));
+        when(repositorySolution.findById(4)).thenReturn(Optional.empty());
+        assertFalse(ownership.ownsSolution(authentication, 3));
+        assertFalse(ownership.ownsSolution(authentication, 4));
+        assertFalse(user.ownsSolution(3));
+    }
+
+    @Test
+    public void testOwnsSolutionRevoked() {
+        // in the principal since the login, the user has been removed from the owners since
+        assertTrue(user.ownsSolution(1));
+        when(repositorySolution.findById(1)).thenReturn(Optional.of(solution(3)));
+        assertFalse(ownership.ownsSolution(authentication, 1));
+        assertFalse(user.ownsSolution(1));
+        verify(repositorySolution, times(1)).findById(1);
+    }
+
+    @Test
+    public void testAddSolutionAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        ownership.addSolution(user, 5, new Integer[] { ID });
+        assertFalse(user.ownsSolution(5));
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(user.ownsSolution(5));
+    }
+
+    @Test
+    public void testAddSolutionRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        ownership.addSolution(user, 6, new Integer[] { ID });
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization
+                .afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertFalse(user.ownsSolution(6));
+    }
+
+    @Test
+    public void testAddOrganisationEvictsOtherOwners() {
+        User other = mock(User.class);
+        when(other.getEmail()).thenReturn("other@test.nl");
+        when(repositoryUser.findById(3)).thenReturn(Optional.of(other));
+
+        // without transaction the principal is updated at once
+        ownership.addOrganisation(user, 7, new Integer[] { 3, ID, null });
+        assertTrue(user.ownsOrganisation(7));
+        verify(authUtils).evictJwtTokens("other@test.nl");
+        verify(repositoryUser, never()).findById(ID);
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import nl.wur.dataentry.dto.DtoSolution;
+import nl.wur.dataentry.service.ReferenceResolver;
+
+class ReferenceResolverTests {
+    private final List<String> statements = new ArrayList<>();
+    // result rows by the start of the statement
+    private final Map<String, List<?>> results = new HashMap<>();
+    private Cache cache;
+    private ReferenceResolver resolver;
+
+    @BeforeEach
+    public void beforeEach() {
+        EntityManager em = mock(EntityManager.class);
+        when(em.createNativeQuery(anyString())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            statements.add(sql);
+            Query query = mock(Query.class, RETURNS_SELF);
+            List<?> rows = results.entrySet().stream().filter(result -> sql.startsWith(result.getKey()))
+                    .map(Map.Entry::getValue).findFirst().orElse(List.of());
+            when(query.getResultList()).thenReturn(new ArrayList<>(rows));
+            return query;
+        });
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        cache = mock(Cache.class);
+        when(em.getEntityManagerFactory()).thenReturn(emf);
+        when(emf.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        resolver = new ReferenceResolver();
+        ReflectionTestUtils.setField(resolver, "em", em);
+    }
+
+    private DtoSolution solution(List<String> languages, String country, List<String> regions) {
+        DtoSolution solution = new DtoSolution();
+        solution.setOtherLanguages(languages);
+        DtoSolution.DtoRegion region = new DtoSolution.DtoRegion();
+        region.setCountry(country);
+        region.setRegions(regions);
+        solution.setOtherRegions(List.of(region));
+        return solution;
+    }
+
+    private long count(String start) {
+        return statements.stream().filter(sql -> sql.startsWith(start)).count();
+    }
+
+    @Test
+    public void testBatch() {
+        results.put("SELECT id, description FROM daghub_dataentry.languages", List.<Object[]>of(
+                new Object[] { 1, "Swahili" }));
+        results.put("INSERT INTO daghub_dataentry.languages", List.<Object[]>of(
+                new Object[] { 10001, "Klingon" }, new Object[] { 10002, "Elvish" }));
+        results.put("SELECT id FROM daghub_dataentry.countries", List.of("KEN"));
+        results.put("SELECT id, country_id, description FROM daghub_dataentry.regions", List.<Object[]>of(
+                new Object[] { 2, "KEN", "Nairobi" }));
+        results.put("INSERT INTO daghub_dataentry.regions", List.<Object[]>of(
+                new Object[] { 10003, "KEN", "Mombasa" }));
+        resolver.resolve(List.of(solution(List.of("Swahili", "Klingon"), "KEN", List.of("Nairobi")),
+                solution(List.of("Elvish", "Swahili"), "KEN", List.of("Mombasa", "Nairobi"))));
+
+        // one select and one insert per type for all solutions
+        assertEquals(1, count("SELECT id, description FROM daghub_dataentry.languages"));
+        assertEquals(1, count("INSERT INTO daghub_dataentry.languages"));
+        assertEquals(1, count("SELECT id, country_id, description FROM daghub_dataentry.regions"));
+        assertEquals(1, count("INSERT INTO daghub_dataentry.regions"));
+        assertEquals(1, count("SELECT id FROM daghub_dataentry.countries"));
+        verify(cache, times(2)).evictQueryRegion("reference-queries");
+
+        // memoised for the request
+        statements.clear();
+        assertEquals(List.of(1, 10001, 10002), resolver.getLanguages(List.of("Swahili", "Klingon", "Elvish")));
+        DtoSolution solution = solution(null, "KEN", List.of("Mombasa", "Nairobi"));
+        assertEquals(List.of(10003, 2), resolver.getRegions(solution.getOtherRegions()));
+        assertEquals(List.of(), statements);
+    }
+
+    @Test
+    public void testKnown() {
+        results.put("SELECT id, description FROM daghub_dataentry.languages", List.<Object[]>of(
+                new Object[] { 1, "Swahili" }, new Object[] { 2, "Luo" }));
+        assertEquals(List.of(2, 1, 2), resolver.getLanguages(List.of("Luo", "Swahili", "Luo")));
+        // nothing missing: no insert and the cached reference queries are kept
+        assertEquals(List.of("SELECT"), statements.stream().map(sql -> sql.substring(0, 6))
+                .collect(Collectors.toList()));
+        verify(cache, never()).evictQueryRegion(anyString());
+    }
+
+    @Test
+    public void testUnknownCountry() {
+        DtoSolution solution = solution(null, "XXX", List.of("Nowhere"));
+        assertThrows(NoSuchElementException.class, () -> resolver.getRegions(solution.getOtherRegions()));
+        assertEquals(0, count("INSERT"));
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import nl.wur.dataentry.dto.DtoTranslation;
+import nl.wur.dataentry.service.SolutionDiff;
+
+class SolutionDiffTests {
+
+    private DtoTranslation translation(int language, String text) {
+        DtoTranslation translation = new DtoTranslation();
+        translation.setLanguage(language);
+        translation.setTranslation(text);
+        return translation;
+    }
+
+    private List<Integer> languages(List<DtoTranslation> translations) {
+        return translations.stream().map(DtoTranslation::getLanguage).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testLinks() {
+        SolutionDiff<Object> diff = SolutionDiff.links(Set.of("1", "2", "3"), Arrays.asList(3, 4, 4, 5, 1), false);
+        assertEquals(List.of(4, 5), diff.getInsert());
+        assertEquals(List.of(2), diff.getDelete());
+        assertTrue(diff.getUpdate().isEmpty());
+
+        // unchanged links write nothing
+        diff = SolutionDiff.links(Set.of("1", "2"), List.of(2, 1), false);
+        assertTrue(diff.getInsert().isEmpty());
+        assertTrue(diff.getDelete().isEmpty());
+    }
+
+    @Test
+    public void testLinksRemoved() {
+        SolutionDiff<Object> diff = SolutionDiff.links(Set.of("7", "8"), null, false);
+        assertTrue(diff.getInsert().isEmpty());
+        assertEquals(Set.of(7, 8), Set.copyOf(diff.getDelete()));
+
+        diff = SolutionDiff.links(Set.of(), List.of(7), false);
+        assertEquals(List.of(7), diff.getInsert());
+        assertTrue(diff.getDelete().isEmpty());
+    }
+
+    @Test
+    public void testLinksText() {
+        // the country codes are deleted as text, the other ids as integers
+        SolutionDiff<Object> diff = SolutionDiff.links(Set.of("KEN", "NLD"), List.of("NLD", "ABW"), true);
+        assertEquals(List.of("ABW"), diff.getInsert());
+        assertEquals(List.of("KEN"), diff.getDelete());
+    }
+
+    @Test
+    public void testTranslations() {
+        Map<Integer, String> stored = new HashMap<>();
+        stored.put(1, "same");
+        stored.put(2, "old");
+        stored.put(3, "removed");
+        stored.put(4, null);
+        SolutionDiff<DtoTranslation> diff = SolutionDiff.translations(stored, List.of(translation(1, "same"),
+                translation(2, "new"), translation(4, null), translation(5, "added"), translation(5, "last")));
+        assertEquals(List.of(5), languages(diff.getInsert()));
+        assertEquals("last", diff.getInsert().get(0).getTranslation());
+        assertEquals(List.of(2), languages(diff.getUpdate()));
+        assertEquals(List.of(3), diff.getDelete());
+    }
+
+    @Test
+    public void testTranslationsRemoved() {
+        SolutionDiff<DtoTranslation> diff = SolutionDiff.translations(Map.of(1, "a", 2, "b"), null);
+        assertTrue(diff.getInsert().isEmpty());
+        assertTrue(diff.getUpdate().isEmpty());
+        assertEquals(Set.of(1, 2), Set.copyOf(diff.getDelete()));
+    }
+}
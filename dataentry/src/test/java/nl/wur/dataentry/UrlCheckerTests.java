@@ -0,0 +1,166 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.dataentry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import nl.wur.dataentry.service.UrlChecker;
+
+class UrlCheckerTests {
+    private HttpServer server;
+    private ExecutorService executor;
+    private UrlChecker checker;
+    private String base;
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    @BeforeEach
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(16);
+        server.setExecutor(executor);
+        server.createContext("/ok", exchange -> respond(exchange, 200));
+        server.createContext("/forbidden", exchange -> respond(exchange, 403));
+        server.createContext("/missing", exchange -> respond(exchange, 404));
+        server.createContext("/error", exchange -> respond(exchange, 500));
+        server.createContext("/redirect", exchange -> {
+            exchange.getResponseHeaders().add("Location", base + "/ok");
+            respond(exchange, 302);
+        });
+        server.createContext("/slow", exchange -> {
+            sleep(2000);
+            respond(exchange, 200);
+        });
+        server.createContext("/count", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            sleep(100);
+            concurrent.decrementAndGet();
+            respond(exchange, 200);
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+        // generous timeouts: the first requests of a HttpClient to the stub server can take a while
+        checker = new UrlChecker(8, 2, Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    public void stop() {
+        checker.shutdown();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testStatus() {
+        Map<String, UrlChecker.Result> results = checker.check(List.of(base + "/ok", base + "/forbidden",
+                base + "/missing", base + "/error", base + "/redirect"));
+        assertTrue(results.get(base + "/ok").isReachable());
+        assertEquals(200, results.get(base + "/ok").getStatus());
+        assertTrue(results.get(base + "/forbidden").isReachable());
+        assertFalse(results.get(base + "/missing").isReachable());
+        assertEquals(404, results.get(base + "/missing").getStatus());
+        assertFalse(results.get(base + "/error").isReachable());
+        assertEquals(200, results.get(base + "/redirect").getStatus());
+        assertNull(results.get(base + "/redirect").getLocation());
+    }
+
+    @Test
+    public void testTimeout() {
+        UrlChecker shortTimeout = new UrlChecker(2, 2, Duration.ofSeconds(1), Duration.ofMillis(500),
+                Duration.ofMinutes(1));
+        try {
+            long start = System.currentTimeMillis();
+            UrlChecker.Result result = shortTimeout.check(List.of(base + "/slow")).get(base + "/slow");
+            assertFalse(result.isReachable());
+            assertEquals(0, result.getStatus());
+            // the https retry fails fast on the plain http server
+            assertTrue(System.currentTimeMillis() - start < 1900);
+        } finally {
+            shortTimeout.shutdown();
+        }
+    }
+
+    @Test
+    public void testPerHost() {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < 12; i++)
+            urls.add(base + "/count?" + i);
+        Map<String, UrlChecker.Result> results = checker.check(urls);
+        assertEquals(12, results.size());
+        assertTrue(results.values().stream().allMatch(UrlChecker.Result::isReachable));
+        assertTrue(maxConcurrent.get() <= 2);
+    }
+
+    @Test
+    public void testOtherScheme() {
+        String url = base.replace("http://", "https://") + "/ok";
+        UrlChecker.Result result = checker.check(List.of(url)).get(url);
+        assertTrue(result.isReachable());
+        assertEquals(base + "/ok", result.getLocation());
+    }
+
+    @Test
+    public void testUnknownHost() {
+        String url = "https://unknown-host.invalid/";
+        UrlChecker.Result result = checker.check(List.of(url, "not a url")).get(url);
+        assertFalse(result.isReachable());
+        assertTrue(result.getError().startsWith("Unknown host"));
+        assertFalse(checker.check(List.of("not a url")).get("not a url").isReachable());
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
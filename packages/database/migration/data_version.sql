@@ -0,0 +1,96 @@
+-- data_version: log of the solutions changed per transaction, kept by statement triggers, and its high-water mark;
+-- the dashboard polls the mark and reloads the solutions changed since the mark it has seen; the script can be run again
+
+-- the first version of this script kept the last version per solution under a counter row
+
+DROP TABLE IF EXISTS data_version;
+DO $$
+BEGIN
+	IF EXISTS (SELECT 1 FROM information_schema.columns WHERE table_name = 'solution_changes'
+		AND column_name = 'version') THEN
+		DROP TABLE solution_changes;
+	END IF;
+END;
+$$;
+
+
+-- solution_changes definition: log of the solutions changed per transaction, written by the statement triggers under
+-- the id of the writing transaction, so concurrent writers insert different keys and do not wait on each other; rows of
+-- deleted solutions are kept, rows older than the last poll of every dashboard can be deleted, e.g.
+-- DELETE FROM solution_changes WHERE created < now() - interval '7 days'
+
+-- Drop table
+
+-- DROP TABLE solution_changes;
+
+CREATE TABLE IF NOT EXISTS solution_changes (
+	xact_id int8 NOT NULL,
+	solution_id int4 NOT NULL,
+	created timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT solution_changes_pkey PRIMARY KEY (xact_id, solution_id)
+);
+
+
+-- data_version definition: high-water mark of the change log, the oldest transaction still running; the transactions
+-- below it have committed or rolled back, so the solutions changed between two versions seen are complete:
+-- xact_id >= previous AND xact_id < current
+
+-- DROP FUNCTION data_version;
+
+CREATE OR REPLACE FUNCTION data_version() RETURNS int8 AS $$
+	SELECT pg_snapshot_xmin(pg_current_snapshot())::text::int8;
+$$ LANGUAGE sql;
+
+
+-- record_data_change definition: statement trigger recording the changed solutions under the current transaction;
+-- the argument is the column of the solution id, of the organisation id when a second argument 'organisation' is given
+
+-- DROP FUNCTION record_data_change;
+
+CREATE OR REPLACE FUNCTION record_data_change() RETURNS trigger AS $$
+DECLARE
+	changed int4[];
+BEGIN
+	EXECUTE format('SELECT array_agg(DISTINCT r.%I) FROM (%s) r', TG_ARGV[0],
+		CASE TG_OP WHEN 'INSERT' THEN 'SELECT * FROM new_rows' WHEN 'DELETE' THEN 'SELECT * FROM old_rows'
+		ELSE 'SELECT * FROM new_rows UNION ALL SELECT * FROM old_rows' END) INTO changed;
+	IF changed IS NULL THEN
+		RETURN NULL;
+	END IF;
+	IF TG_NARGS > 1 THEN
+		changed := ARRAY(SELECT s.id FROM solutions s WHERE s.organisation_id = ANY(changed));
+	END IF;
+	INSERT INTO solution_changes (xact_id, solution_id)
+		SELECT pg_current_xact_id()::text::int8, id FROM unnest(changed) AS id
+		ON CONFLICT DO NOTHING;
+	RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+
+-- record_data_change triggers: one per table and operation, as a trigger with transition tables has one event
+
+-- DROP TRIGGER <table>_<operation>_changes ON <table>;
+
+DO $$
+DECLARE
+	t record;
+	op text;
+BEGIN
+	FOR t IN SELECT * FROM (VALUES ('solutions', 'id'), ('organisations', 'id, ''organisation'''),
+		('solution_translations', 'solution_id'), ('organisation_translations', 'organisation_id, ''organisation'''),
+		('business_models_in_solutions', 'solution_id'), ('channels_in_solutions', 'solution_id'),
+		('countries_in_solutions', 'solution_id'), ('languages_in_solutions', 'solution_id'),
+		('regions_in_solutions', 'solution_id'), ('sectors_in_solutions', 'solution_id'),
+		('sub_use_cases_in_solutions', 'solution_id'), ('tags_in_solutions', 'solution_id'),
+		('technologies_in_solutions', 'solution_id')) AS v(tab, args) LOOP
+		FOREACH op IN ARRAY ARRAY['insert', 'update', 'delete'] LOOP
+			EXECUTE format('DROP TRIGGER IF EXISTS %s ON %I', t.tab || '_' || op || '_changes', t.tab);
+			EXECUTE format('CREATE TRIGGER %s AFTER %s ON %I REFERENCING %s FOR EACH STATEMENT'
+				' EXECUTE FUNCTION record_data_change(%s)', t.tab || '_' || op || '_changes', op, t.tab,
+				CASE op WHEN 'insert' THEN 'NEW TABLE AS new_rows' WHEN 'delete' THEN 'OLD TABLE AS old_rows'
+				ELSE 'NEW TABLE AS new_rows OLD TABLE AS old_rows' END, t.args);
+		END LOOP;
+	END LOOP;
+END;
+$$;
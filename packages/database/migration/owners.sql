@@ -0,0 +1,7 @@
+-- owners: the ids of the owning users as int4[] instead of text[], GIN indexed for the owner lookups
+
+ALTER TABLE organisations ALTER COLUMN owners TYPE int4[] USING CAST(owners AS int4[]);
+ALTER TABLE solutions ALTER COLUMN owners TYPE int4[] USING CAST(owners AS int4[]);
+
+CREATE INDEX IF NOT EXISTS organisations_owners_idx ON organisations USING gin (owners);
+CREATE INDEX IF NOT EXISTS solutions_owners_idx ON solutions USING gin (owners);
@@ -0,0 +1,93 @@
+-- search: full-text document of the solutions in solution_facets (names, url domains, descriptions and
+-- translations of the solution and its organisation) and the keys of both names, GIN indexed and rebuilt by
+-- refresh_solution_facets
+
+ALTER TABLE solution_facets ADD COLUMN IF NOT EXISTS names _text NOT NULL DEFAULT '{}';
+ALTER TABLE solution_facets ALTER COLUMN names DROP DEFAULT;
+ALTER TABLE solution_facets ADD COLUMN IF NOT EXISTS "document" tsvector NOT NULL DEFAULT '';
+ALTER TABLE solution_facets ALTER COLUMN "document" DROP DEFAULT;
+CREATE INDEX IF NOT EXISTS solution_facets_names_idx ON solution_facets USING gin (names);
+CREATE INDEX IF NOT EXISTS solution_facets_document_idx ON solution_facets USING gin ("document");
+
+
+-- url_domains definition: host of an url without www. and its parent domains, e.g. 'app.wur.nl wur.nl'
+
+CREATE OR REPLACE FUNCTION url_domains(url text) RETURNS text AS $$
+	SELECT string_agg(array_to_string(h.labels[i:], '.'), ' ')
+	FROM (SELECT string_to_array(substring(lower(url) FROM '^(?:[a-z]+://)?(?:www\.)?([^/:?#]+)'), '.') AS labels) h,
+		generate_series(1, cardinality(h.labels) - 1) AS i
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- search_query definition: prefix query of the words of a text joined by operator ('&' all, '|' any),
+-- restricted to the weights of the document (e.g. 'AB', '' for all), NULL when the text has no words
+
+CREATE OR REPLACE FUNCTION search_query(words text, operator text, weights text) RETURNS tsquery AS $$
+	-- the parts of hyphenated words are searched, not the words themselves, which are not in a document written apart
+	SELECT CAST(string_agg('''' || replace(replace(d.w, '\', '\\'), '''', '''''') || ''':*' || weights, ' ' || operator || ' ')
+		AS tsquery)
+	FROM (SELECT DISTINCT unnest(lexemes) AS w FROM ts_debug('simple', words)
+		WHERE alias NOT IN ('asciihword', 'hword', 'numhword')) d
+$$ LANGUAGE sql STABLE;
+
+-- name_key definition: a name in lower case with its words separated by single spaces
+
+CREATE OR REPLACE FUNCTION name_key(name text) RETURNS text AS $$
+	SELECT lower(trim(regexp_replace(name, '[^[:alnum:]]+', ' ', 'g')))
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- name_spans definition: name keys of all the runs of consecutive words of a text, the names contained in it
+
+CREATE OR REPLACE FUNCTION name_spans(words text) RETURNS text[] AS $$
+	SELECT array_agg(array_to_string(k.w[i:j], ' '))
+	FROM (SELECT string_to_array(name_key(words), ' ') AS w) k,
+		generate_series(1, cardinality(k.w)) AS i, generate_series(i, cardinality(k.w)) AS j
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- refresh_solution_facets definition: rebuilds the rows of the given solutions, of all solutions when NULL
+
+CREATE OR REPLACE FUNCTION refresh_solution_facets(ids int4[]) RETURNS int4 AS $$
+DECLARE
+	refreshed int4;
+BEGIN
+	DELETE FROM solution_facets f WHERE ids IS NULL OR f.solution_id = ANY(ids);
+	INSERT INTO solution_facets
+	SELECT s.id, o.organisationtype_id, o.business_growth_stage_id, s.launch,
+		s.registeredusers, s.shfusers, s.womenusers, s.youthusers,
+		COALESCE(t.agg, '{}'), COALESCE(ch.agg, '{}'), COALESCE(u.agg, '{}'), COALESCE(tg.agg, '{}'), COALESCE(co.agg, '{}'),
+		ARRAY[name_key(s.name), name_key(o.name)],
+		-- searched by weight: A solution name and domains, B organisation name and domains, C and D their descriptions
+		-- and translations; the simple configuration does not stem, as the translations are in several languages
+		setweight(to_tsvector('simple', concat_ws(' ', s.name, url_domains(s.url))), 'A')
+		|| setweight(to_tsvector('simple', concat_ws(' ', o.name, url_domains(o.url))), 'B')
+		|| setweight(to_tsvector('simple', concat_ws(' ', s.description, st.agg)), 'C')
+		|| setweight(to_tsvector('simple', concat_ws(' ', o.description, ot.agg)), 'D')
+	FROM solutions s
+	JOIN organisations o ON o.id = s.organisation_id
+	LEFT JOIN (SELECT solution_id, array_agg(technology_id ORDER BY technology_id) AS agg FROM technologies_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) t ON t.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(channel_id ORDER BY channel_id) AS agg FROM channels_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) ch ON ch.solution_id = s.id
+	LEFT JOIN (SELECT sucis.solution_id, array_agg(DISTINCT suc.usecase_id ORDER BY suc.usecase_id) AS agg
+		FROM sub_use_cases_in_solutions sucis JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id
+		WHERE ids IS NULL OR sucis.solution_id = ANY(ids) GROUP BY sucis.solution_id) u ON u.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(tag_id ORDER BY tag_id) AS agg FROM tags_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) tg ON tg.solution_id = s.id
+	-- only the LMIC countries are shown on the dashboard
+	LEFT JOIN (SELECT cis.solution_id, array_agg(cis.country_id ORDER BY cis.country_id) AS agg
+		FROM countries_in_solutions cis JOIN countries c ON c.id = cis.country_id
+		WHERE c.lmic = true AND (ids IS NULL OR cis.solution_id = ANY(ids)) GROUP BY cis.solution_id) co ON co.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, string_agg("translation", ' ') AS agg FROM solution_translations
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) st ON st.solution_id = s.id
+	LEFT JOIN (SELECT organisation_id, string_agg("translation", ' ') AS agg FROM organisation_translations
+		WHERE ids IS NULL OR organisation_id IN (SELECT organisation_id FROM solutions WHERE id = ANY(ids))
+		GROUP BY organisation_id) ot ON ot.organisation_id = o.id
+	WHERE s.dateremoved IS NULL AND s.visible = true AND (ids IS NULL OR s.id = ANY(ids));
+	GET DIAGNOSTICS refreshed = ROW_COUNT;
+	RETURN refreshed;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT refresh_solution_facets(NULL);
@@ -0,0 +1,61 @@
+-- solution_facets: read model of the dashboard, refreshed by dataentry. Running this script again rebuilds it,
+-- e.g. after the visibility of solutions is changed outside dataentry; once search.sql has been run, rebuild it
+-- with SELECT refresh_solution_facets(NULL) instead, as this script would replace the function of search.sql
+
+CREATE TABLE IF NOT EXISTS solution_facets (
+	solution_id int4 NOT NULL,
+	organisationtype_id int4 NOT NULL,
+	business_growth_stage_id int4 NOT NULL,
+	launch int4 NOT NULL,
+	registeredusers int4 NULL,
+	shfusers int4 NULL,
+	womenusers int4 NULL,
+	youthusers int4 NULL,
+	technologies _int4 NOT NULL,
+	channels _int4 NOT NULL,
+	usecases _int4 NOT NULL,
+	tags _int4 NOT NULL,
+	countries _text NOT NULL,
+	CONSTRAINT solution_facets_pkey PRIMARY KEY (solution_id),
+	CONSTRAINT solution_facets_solution_id_fkey FOREIGN KEY (solution_id) REFERENCES solutions(id) ON DELETE CASCADE
+);
+CREATE INDEX IF NOT EXISTS solution_facets_technologies_idx ON solution_facets USING gin (technologies);
+CREATE INDEX IF NOT EXISTS solution_facets_channels_idx ON solution_facets USING gin (channels);
+CREATE INDEX IF NOT EXISTS solution_facets_usecases_idx ON solution_facets USING gin (usecases);
+CREATE INDEX IF NOT EXISTS solution_facets_tags_idx ON solution_facets USING gin (tags);
+CREATE INDEX IF NOT EXISTS solution_facets_countries_idx ON solution_facets USING gin (countries);
+
+
+-- refresh_solution_facets definition: rebuilds the rows of the given solutions, of all solutions when NULL
+
+CREATE OR REPLACE FUNCTION refresh_solution_facets(ids int4[]) RETURNS int4 AS $$
+DECLARE
+	refreshed int4;
+BEGIN
+	DELETE FROM solution_facets f WHERE ids IS NULL OR f.solution_id = ANY(ids);
+	INSERT INTO solution_facets
+	SELECT s.id, o.organisationtype_id, o.business_growth_stage_id, s.launch,
+		s.registeredusers, s.shfusers, s.womenusers, s.youthusers,
+		COALESCE(t.agg, '{}'), COALESCE(ch.agg, '{}'), COALESCE(u.agg, '{}'), COALESCE(tg.agg, '{}'), COALESCE(co.agg, '{}')
+	FROM solutions s
+	JOIN organisations o ON o.id = s.organisation_id
+	LEFT JOIN (SELECT solution_id, array_agg(technology_id ORDER BY technology_id) AS agg FROM technologies_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) t ON t.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(channel_id ORDER BY channel_id) AS agg FROM channels_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) ch ON ch.solution_id = s.id
+	LEFT JOIN (SELECT sucis.solution_id, array_agg(DISTINCT suc.usecase_id ORDER BY suc.usecase_id) AS agg
+		FROM sub_use_cases_in_solutions sucis JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id
+		WHERE ids IS NULL OR sucis.solution_id = ANY(ids) GROUP BY sucis.solution_id) u ON u.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(tag_id ORDER BY tag_id) AS agg FROM tags_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) tg ON tg.solution_id = s.id
+	-- only the LMIC countries are shown on the dashboard
+	LEFT JOIN (SELECT cis.solution_id, array_agg(cis.country_id ORDER BY cis.country_id) AS agg
+		FROM countries_in_solutions cis JOIN countries c ON c.id = cis.country_id
+		WHERE c.lmic = true AND (ids IS NULL OR cis.solution_id = ANY(ids)) GROUP BY cis.solution_id) co ON co.solution_id = s.id
+	WHERE s.dateremoved IS NULL AND s.visible = true AND (ids IS NULL OR s.id = ANY(ids));
+	GET DIAGNOSTICS refreshed = ROW_COUNT;
+	RETURN refreshed;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT refresh_solution_facets(NULL);
@@ -0,0 +1,12 @@
+-- url_checks: results of the url checks of solutions and organisations
+
+CREATE TABLE IF NOT EXISTS url_checks (
+	url text NOT NULL,
+	status int4 NOT NULL,
+	reachable bool NOT NULL,
+	"location" text NULL,
+	error text NULL,
+	datechecked timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	reported bool NOT NULL DEFAULT true,
+	CONSTRAINT url_checks_pkey PRIMARY KEY (url)
+);
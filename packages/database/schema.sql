@@ -98,6 +98,26 @@ CREATE TABLE languages (
 );
 
 
+-- log_query definition
+
+-- Drop table
+
+-- DROP TABLE log_query;
+
+CREATE TABLE log_query (
+	id serial4 NOT NULL,
+	currenttime text NULL,
+	technologies text NULL,
+	channels text NULL,
+	usecases text NULL,
+	organisationtypes text NULL,
+	stages text NULL,
+	tags text NULL,
+	countries text NULL,
+	CONSTRAINT log_query_pkey PRIMARY KEY (id)
+);
+
+
 -- organisation_types definition
 
 -- Drop table
@@ -168,6 +188,24 @@ CREATE TABLE use_cases (
 );
 
 
+-- url_checks definition
+
+-- Drop table
+
+-- DROP TABLE url_checks;
+
+CREATE TABLE url_checks (
+	url text NOT NULL,
+	status int4 NOT NULL,
+	reachable bool NOT NULL,
+	"location" text NULL,
+	error text NULL,
+	datechecked timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+	reported bool NOT NULL DEFAULT true,
+	CONSTRAINT url_checks_pkey PRIMARY KEY (url)
+);
+
+
 -- users definition
 
 -- Drop table
@@ -260,7 +298,7 @@ CREATE TABLE organisations (
 	datemodified timestamp NULL,
 	dateremoved timestamp NULL,
 	"version" int4 NULL DEFAULT 0,
-	owners _text NOT NULL,
+	owners _int4 NOT NULL,
 	datemodifiedowner timestamp NULL,
 	CONSTRAINT organisations_pkey PRIMARY KEY (id),
 	CONSTRAINT organisations_business_funding_stage_id_fkey FOREIGN KEY (business_funding_stage_id) REFERENCES business_funding_stages(id) ON DELETE RESTRICT ON UPDATE RESTRICT,
@@ -269,6 +307,7 @@ CREATE TABLE organisations (
 	CONSTRAINT organisations_hqregion_id_fkey FOREIGN KEY (hqregion_id) REFERENCES regions(id) ON DELETE RESTRICT ON UPDATE RESTRICT,
 	CONSTRAINT organisations_organisationtype_id_fkey FOREIGN KEY (organisationtype_id) REFERENCES organisation_types(id) ON DELETE RESTRICT ON UPDATE RESTRICT
 );
+CREATE INDEX organisations_owners_idx ON organisations USING gin (owners);
 
 
 -- solutions definition
@@ -302,7 +341,7 @@ CREATE TABLE solutions (
 	dateremoved timestamp NULL,
 	"version" int4 NULL DEFAULT 0,
 	visible bool NULL,
-	owners _text NOT NULL,
+	owners _int4 NOT NULL,
 	datemodifiedowner timestamp NULL,
 	CONSTRAINT solutions_activeusers_check CHECK ((activeusers >= 0)),
 	CONSTRAINT solutions_bundling_check CHECK (((bundling = 0) OR (bundling = 1))),
@@ -319,6 +358,7 @@ CREATE TABLE solutions (
 	CONSTRAINT solutions_organisation_id_fkey FOREIGN KEY (organisation_id) REFERENCES organisations(id) ON DELETE RESTRICT ON UPDATE RESTRICT,
 	CONSTRAINT solutions_primarysubusecase_id_fkey FOREIGN KEY (primarysubusecase_id) REFERENCES sub_use_cases(id) ON DELETE RESTRICT ON UPDATE RESTRICT
 );
+CREATE INDEX solutions_owners_idx ON solutions USING gin (owners);
 
 
 -- sub_use_cases_in_solutions definition
@@ -486,3 +526,209 @@ CREATE TABLE solution_translations (
 	CONSTRAINT solution_translations_language_id_fkey FOREIGN KEY (language_id) REFERENCES languages(id) ON DELETE CASCADE,
 	CONSTRAINT solution_translations_solution_id_fkey FOREIGN KEY (solution_id) REFERENCES solutions(id) ON DELETE CASCADE
 );
+
+
+-- solution_facets definition: read model of the dashboard, one row per visible, non-removed solution
+
+-- Drop table
+
+-- DROP TABLE solution_facets;
+
+CREATE TABLE solution_facets (
+	solution_id int4 NOT NULL,
+	organisationtype_id int4 NOT NULL,
+	business_growth_stage_id int4 NOT NULL,
+	launch int4 NOT NULL,
+	registeredusers int4 NULL,
+	shfusers int4 NULL,
+	womenusers int4 NULL,
+	youthusers int4 NULL,
+	technologies _int4 NOT NULL,
+	channels _int4 NOT NULL,
+	usecases _int4 NOT NULL,
+	tags _int4 NOT NULL,
+	countries _text NOT NULL,
+	names _text NOT NULL,
+	"document" tsvector NOT NULL,
+	CONSTRAINT solution_facets_pkey PRIMARY KEY (solution_id),
+	CONSTRAINT solution_facets_solution_id_fkey FOREIGN KEY (solution_id) REFERENCES solutions(id) ON DELETE CASCADE
+);
+CREATE INDEX solution_facets_technologies_idx ON solution_facets USING gin (technologies);
+CREATE INDEX solution_facets_channels_idx ON solution_facets USING gin (channels);
+CREATE INDEX solution_facets_usecases_idx ON solution_facets USING gin (usecases);
+CREATE INDEX solution_facets_tags_idx ON solution_facets USING gin (tags);
+CREATE INDEX solution_facets_countries_idx ON solution_facets USING gin (countries);
+CREATE INDEX solution_facets_names_idx ON solution_facets USING gin (names);
+CREATE INDEX solution_facets_document_idx ON solution_facets USING gin ("document");
+
+
+-- url_domains definition: host of an url without www. and its parent domains, e.g. 'app.wur.nl wur.nl'
+
+-- DROP FUNCTION url_domains;
+
+CREATE OR REPLACE FUNCTION url_domains(url text) RETURNS text AS $$
+	SELECT string_agg(array_to_string(h.labels[i:], '.'), ' ')
+	FROM (SELECT string_to_array(substring(lower(url) FROM '^(?:[a-z]+://)?(?:www\.)?([^/:?#]+)'), '.') AS labels) h,
+		generate_series(1, cardinality(h.labels) - 1) AS i
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- search_query definition: prefix query of the words of a text joined by operator ('&' all, '|' any),
+-- restricted to the weights of the document (e.g. 'AB', '' for all), NULL when the text has no words
+
+-- DROP FUNCTION search_query;
+
+CREATE OR REPLACE FUNCTION search_query(words text, operator text, weights text) RETURNS tsquery AS $$
+	-- the parts of hyphenated words are searched, not the words themselves, which are not in a document written apart
+	SELECT CAST(string_agg('''' || replace(replace(d.w, '\', '\\'), '''', '''''') || ''':*' || weights, ' ' || operator || ' ')
+		AS tsquery)
+	FROM (SELECT DISTINCT unnest(lexemes) AS w FROM ts_debug('simple', words)
+		WHERE alias NOT IN ('asciihword', 'hword', 'numhword')) d
+$$ LANGUAGE sql STABLE;
+
+-- name_key definition: a name in lower case with its words separated by single spaces
+
+-- DROP FUNCTION name_key;
+
+CREATE OR REPLACE FUNCTION name_key(name text) RETURNS text AS $$
+	SELECT lower(trim(regexp_replace(name, '[^[:alnum:]]+', ' ', 'g')))
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- name_spans definition: name keys of all the runs of consecutive words of a text, the names contained in it
+
+-- DROP FUNCTION name_spans;
+
+CREATE OR REPLACE FUNCTION name_spans(words text) RETURNS text[] AS $$
+	SELECT array_agg(array_to_string(k.w[i:j], ' '))
+	FROM (SELECT string_to_array(name_key(words), ' ') AS w) k,
+		generate_series(1, cardinality(k.w)) AS i, generate_series(i, cardinality(k.w)) AS j
+$$ LANGUAGE sql IMMUTABLE;
+
+
+-- refresh_solution_facets definition: rebuilds the rows of the given solutions, of all solutions when NULL
+
+-- DROP FUNCTION refresh_solution_facets;
+
+CREATE OR REPLACE FUNCTION refresh_solution_facets(ids int4[]) RETURNS int4 AS $$
+DECLARE
+	refreshed int4;
+BEGIN
+	DELETE FROM solution_facets f WHERE ids IS NULL OR f.solution_id = ANY(ids);
+	INSERT INTO solution_facets
+	SELECT s.id, o.organisationtype_id, o.business_growth_stage_id, s.launch,
+		s.registeredusers, s.shfusers, s.womenusers, s.youthusers,
+		COALESCE(t.agg, '{}'), COALESCE(ch.agg, '{}'), COALESCE(u.agg, '{}'), COALESCE(tg.agg, '{}'), COALESCE(co.agg, '{}'),
+		ARRAY[name_key(s.name), name_key(o.name)],
+		-- searched by weight: A solution name and domains, B organisation name and domains, C and D their descriptions
+		-- and translations; the simple configuration does not stem, as the translations are in several languages
+		setweight(to_tsvector('simple', concat_ws(' ', s.name, url_domains(s.url))), 'A')
+		|| setweight(to_tsvector('simple', concat_ws(' ', o.name, url_domains(o.url))), 'B')
+		|| setweight(to_tsvector('simple', concat_ws(' ', s.description, st.agg)), 'C')
+		|| setweight(to_tsvector('simple', concat_ws(' ', o.description, ot.agg)), 'D')
+	FROM solutions s
+	JOIN organisations o ON o.id = s.organisation_id
+	LEFT JOIN (SELECT solution_id, array_agg(technology_id ORDER BY technology_id) AS agg FROM technologies_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) t ON t.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(channel_id ORDER BY channel_id) AS agg FROM channels_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) ch ON ch.solution_id = s.id
+	LEFT JOIN (SELECT sucis.solution_id, array_agg(DISTINCT suc.usecase_id ORDER BY suc.usecase_id) AS agg
+		FROM sub_use_cases_in_solutions sucis JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id
+		WHERE ids IS NULL OR sucis.solution_id = ANY(ids) GROUP BY sucis.solution_id) u ON u.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, array_agg(tag_id ORDER BY tag_id) AS agg FROM tags_in_solutions
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) tg ON tg.solution_id = s.id
+	-- only the LMIC countries are shown on the dashboard
+	LEFT JOIN (SELECT cis.solution_id, array_agg(cis.country_id ORDER BY cis.country_id) AS agg
+		FROM countries_in_solutions cis JOIN countries c ON c.id = cis.country_id
+		WHERE c.lmic = true AND (ids IS NULL OR cis.solution_id = ANY(ids)) GROUP BY cis.solution_id) co ON co.solution_id = s.id
+	LEFT JOIN (SELECT solution_id, string_agg("translation", ' ') AS agg FROM solution_translations
+		WHERE ids IS NULL OR solution_id = ANY(ids) GROUP BY solution_id) st ON st.solution_id = s.id
+	LEFT JOIN (SELECT organisation_id, string_agg("translation", ' ') AS agg FROM organisation_translations
+		WHERE ids IS NULL OR organisation_id IN (SELECT organisation_id FROM solutions WHERE id = ANY(ids))
+		GROUP BY organisation_id) ot ON ot.organisation_id = o.id
+	WHERE s.dateremoved IS NULL AND s.visible = true AND (ids IS NULL OR s.id = ANY(ids));
+	GET DIAGNOSTICS refreshed = ROW_COUNT;
+	RETURN refreshed;
+END;
+$$ LANGUAGE plpgsql;
+
+
+-- solution_changes definition: log of the solutions changed per transaction, written by the statement triggers under
+-- the id of the writing transaction, so concurrent writers insert different keys and do not wait on each other; rows of
+-- deleted solutions are kept, rows older than the last poll of every dashboard can be deleted, e.g.
+-- DELETE FROM solution_changes WHERE created < now() - interval '7 days'
+
+-- Drop table
+
+-- DROP TABLE solution_changes;
+
+CREATE TABLE solution_changes (
+	xact_id int8 NOT NULL,
+	solution_id int4 NOT NULL,
+	created timestamp NOT NULL DEFAULT now(),
+	CONSTRAINT solution_changes_pkey PRIMARY KEY (xact_id, solution_id)
+);
+
+
+-- data_version definition: high-water mark of the change log, the oldest transaction still running; the transactions
+-- below it have committed or rolled back, so the solutions changed between two versions seen are complete:
+-- xact_id >= previous AND xact_id < current
+
+-- DROP FUNCTION data_version;
+
+CREATE OR REPLACE FUNCTION data_version() RETURNS int8 AS $$
+	SELECT pg_snapshot_xmin(pg_current_snapshot())::text::int8;
+$$ LANGUAGE sql;
+
+
+-- record_data_change definition: statement trigger recording the changed solutions under the current transaction;
+-- the argument is the column of the solution id, of the organisation id when a second argument 'organisation' is given
+
+-- DROP FUNCTION record_data_change;
+
+CREATE OR REPLACE FUNCTION record_data_change() RETURNS trigger AS $$
+DECLARE
+	changed int4[];
+BEGIN
+	EXECUTE format('SELECT array_agg(DISTINCT r.%I) FROM (%s) r', TG_ARGV[0],
+		CASE TG_OP WHEN 'INSERT' THEN 'SELECT * FROM new_rows' WHEN 'DELETE' THEN 'SELECT * FROM old_rows'
+		ELSE 'SELECT * FROM new_rows UNION ALL SELECT * FROM old_rows' END) INTO changed;
+	IF changed IS NULL THEN
+		RETURN NULL;
+	END IF;
+	IF TG_NARGS > 1 THEN
+		changed := ARRAY(SELECT s.id FROM solutions s WHERE s.organisation_id = ANY(changed));
+	END IF;
+	INSERT INTO solution_changes (xact_id, solution_id)
+		SELECT pg_current_xact_id()::text::int8, id FROM unnest(changed) AS id
+		ON CONFLICT DO NOTHING;
+	RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+
+-- record_data_change triggers: one per table and operation, as a trigger with transition tables has one event
+
+-- DROP TRIGGER <table>_<operation>_changes ON <table>;
+
+DO $$
+DECLARE
+	t record;
+	op text;
+BEGIN
+	FOR t IN SELECT * FROM (VALUES ('solutions', 'id'), ('organisations', 'id, ''organisation'''),
+		('solution_translations', 'solution_id'), ('organisation_translations', 'organisation_id, ''organisation'''),
+		('business_models_in_solutions', 'solution_id'), ('channels_in_solutions', 'solution_id'),
+		('countries_in_solutions', 'solution_id'), ('languages_in_solutions', 'solution_id'),
+		('regions_in_solutions', 'solution_id'), ('sectors_in_solutions', 'solution_id'),
+		('sub_use_cases_in_solutions', 'solution_id'), ('tags_in_solutions', 'solution_id'),
+		('technologies_in_solutions', 'solution_id')) AS v(tab, args) LOOP
+		FOREACH op IN ARRAY ARRAY['insert', 'update', 'delete'] LOOP
+			EXECUTE format('CREATE TRIGGER %s AFTER %s ON %I REFERENCING %s FOR EACH STATEMENT'
+				' EXECUTE FUNCTION record_data_change(%s)', t.tab || '_' || op || '_changes', op, t.tab,
+				CASE op WHEN 'insert' THEN 'NEW TABLE AS new_rows' WHEN 'delete' THEN 'OLD TABLE AS old_rows'
+				ELSE 'NEW TABLE AS new_rows OLD TABLE AS old_rows' END, t.args);
+		END LOOP;
+	END LOOP;
+END;
+$$;
@@ -24,6 +24,7 @@
 
 package nl.wur.daghub.database.domain;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -31,10 +32,15 @@ import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import lombok.Getter;
 
 @Entity
 @Table(name = "business_models")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "reference")
 public class BusinessModel {
     private @Getter @Id @GeneratedValue(strategy = GenerationType.IDENTITY) int id;
     private @Getter @NotNull String description;
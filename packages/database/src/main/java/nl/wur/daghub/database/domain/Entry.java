@@ -25,6 +25,8 @@
 package nl.wur.daghub.database.domain;
 
 import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Objects;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
@@ -47,7 +49,7 @@ public abstract class Entry {
     protected @JsonIgnore Timestamp dateremoved;
     protected @JsonIgnore @Setter Timestamp datemodifiedowner;
     protected @JsonIgnore @Version Long version;
-    protected @JsonIgnore @Getter @Setter @Column(columnDefinition = "text[]") @Type(type = "nl.wur.daghub.database.hibernate.TypeStringArray") String[] owners;
+    protected @JsonIgnore @Getter @Setter @Column(columnDefinition = "int4[]") @Type(type = "nl.wur.daghub.database.hibernate.TypeIntegerArray") Integer[] owners;
 
     @Override
     public int hashCode() {
@@ -74,25 +76,21 @@ public abstract class Entry {
         return true;
     }
 
-    public String[] addOwner(int id) {
-        String[] ids;
-        if (owners == null) {
-            ids = new String[1];
-        } else if (hasOwner(id)) {
+    public Integer[] addOwner(int id) {
+        if (owners == null)
+            return new Integer[] { id };
+        if (hasOwner(id))
             return owners;
-        } else {
-            ids = new String[owners.length + 1];
-            for (int i = 0; i < owners.length; i++)
-                ids[i] = owners[i];
-        }
-        ids[ids.length - 1] = Integer.toString(id);
+        Integer[] ids = Arrays.copyOf(owners, owners.length + 1);
+        ids[owners.length] = id;
         return ids;
     }
 
     public boolean hasOwner(int id) {
-        String sid = Integer.toString(id);
-        for (int i = 0; i < owners.length; i++)
-            if (owners[i].equals(sid))
+        if (owners == null)
+            return false;
+        for (Integer owner : owners)
+            if (Objects.equals(owner, id))
                 return true;
         return false;
     }
@@ -38,11 +38,19 @@ import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+/**
+ * Associations are lazy: the edit form is read with the projections of
+ * RepositoryOrganisation, the solutions join the single valued ones with the
+ * graph "Solution.detail".
+ */
 @Entity
 @Table(name = "organisations")
 @NoArgsConstructor
@@ -52,19 +60,19 @@ public class Organisation extends Entry {
     private @Getter String description;
     private @Getter String url;
     private @Getter Integer founded;
-    private @Getter @NotNull @ManyToOne(fetch = FetchType.EAGER) OrganisationType organisationtype;
-    private @Getter @NotNull @ManyToOne(fetch = FetchType.EAGER) Country hqcountry;
-    private @Getter @NotNull @ManyToOne(fetch = FetchType.EAGER) Region hqregion;
-    private @Getter @NotNull @ManyToOne(fetch = FetchType.EAGER) BusinessFundingStage businessFundingStage;
-    private @Getter @NotNull @ManyToOne(fetch = FetchType.EAGER) BusinessGrowthStage businessGrowthStage;
+    private @Getter @NotNull @ManyToOne(fetch = FetchType.LAZY) OrganisationType organisationtype;
+    private @Getter @NotNull @ManyToOne(fetch = FetchType.LAZY) Country hqcountry;
+    private @Getter @NotNull @ManyToOne(fetch = FetchType.LAZY) Region hqregion;
+    private @Getter @NotNull @ManyToOne(fetch = FetchType.LAZY) BusinessFundingStage businessFundingStage;
+    private @Getter @NotNull @ManyToOne(fetch = FetchType.LAZY) BusinessGrowthStage businessGrowthStage;
 
     private @OneToMany(fetch = FetchType.LAZY, targetEntity = Solution.class, mappedBy = "organisation") Set<Solution> solutions;
-    private @Getter @OneToMany(fetch = FetchType.EAGER, targetEntity = OrganisationTranslation.class, mappedBy = "organisation", cascade = CascadeType.ALL) Set<OrganisationTranslation> translations;
+    private @Getter @OneToMany(fetch = FetchType.LAZY, targetEntity = OrganisationTranslation.class, mappedBy = "organisation", cascade = CascadeType.ALL) @Fetch(FetchMode.SUBSELECT) Set<OrganisationTranslation> translations;
 
     public Organisation(@NotNull String name, String description, String url, Integer founded,
             @NotNull OrganisationType organisationtype, @NotNull Country hqcountry, @NotNull Region hqregion,
             @NotNull BusinessFundingStage businessFundingStage, @NotNull BusinessGrowthStage businessGrowthStage,
-            @NotNull String[] owners, Timestamp datemodifiedowner) {
+            @NotNull Integer[] owners, Timestamp datemodifiedowner) {
         this.name = name;
         this.description = description;
         this.url = url;
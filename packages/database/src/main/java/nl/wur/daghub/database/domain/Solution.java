@@ -37,18 +37,35 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+/**
+ * Associations are lazy: the graph "Solution.detail" joins the single valued
+ * ones of a solution and its organisation, the collections are loaded with one
+ * query each for all solutions of the same query (subselect).
+ */
 @Entity
 @Table(name = "solutions")
+@NamedEntityGraph(name = "Solution.detail", attributeNodes = {
+        @NamedAttributeNode(value = "organisation", subgraph = "organisation"),
+        @NamedAttributeNode("primarysubusecase") }, subgraphs = @NamedSubgraph(name = "organisation", attributeNodes = {
+                @NamedAttributeNode("organisationtype"), @NamedAttributeNode("hqcountry"),
+                @NamedAttributeNode("hqregion"), @NamedAttributeNode("businessFundingStage"),
+                @NamedAttributeNode("businessGrowthStage") }))
 @NoArgsConstructor
 public class Solution extends Entry {
     private @JsonIgnore @Getter @Id @GeneratedValue(strategy = GenerationType.IDENTITY) int id;
@@ -68,23 +85,23 @@ public class Solution extends Entry {
     private @Getter Double yieldupperbound;
     private @Getter Double incomelowerbound;
     private @Getter Double incomeupperbound;
-    private @Getter @Setter @NotNull @ManyToOne(fetch = FetchType.EAGER) Organisation organisation;
-    private @Getter @Setter @NotNull @ManyToOne(fetch = FetchType.EAGER) SubUseCase primarysubusecase;
+    private @Getter @Setter @NotNull @ManyToOne(fetch = FetchType.LAZY) Organisation organisation;
+    private @Getter @Setter @NotNull @ManyToOne(fetch = FetchType.LAZY) SubUseCase primarysubusecase;
 
-    private @Getter @ManyToMany(fetch = FetchType.EAGER) @JoinTable(name = "sectors_in_solutions", inverseJoinColumns = @JoinColumn(name = "sector_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Sector> sectors;
-    private @Getter @ManyToMany(fetch = FetchType.EAGER) @JoinTable(name = "tags_in_solutions", inverseJoinColumns = @JoinColumn(name = "tag_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Tag> tags;
-    private @Getter @ManyToMany(fetch = FetchType.EAGER) @JoinTable(name = "sub_use_cases_in_solutions", inverseJoinColumns = @JoinColumn(name = "subusecase_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<SubUseCase> subUseCases;
-    private @Getter @ManyToMany(fetch = FetchType.EAGER) @JoinTable(name = "business_models_in_solutions", inverseJoinColumns = @JoinColumn(name = "businessmodel_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<BusinessModel> businessModels;
-    private @Getter @ManyToMany(fetch = FetchType.EAGER) @JoinTable(name = "regions_in_solutions", inverseJoinColumns = @JoinColumn(name = "region_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Region> regions;
+    private @Getter @ManyToMany(fetch = FetchType.LAZY) @Fetch(FetchMode.SUBSELECT) @JoinTable(name = "sectors_in_solutions", inverseJoinColumns = @JoinColumn(name = "sector_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Sector> sectors;
+    private @Getter @ManyToMany(fetch = FetchType.LAZY) @Fetch(FetchMode.SUBSELECT) @JoinTable(name = "tags_in_solutions", inverseJoinColumns = @JoinColumn(name = "tag_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Tag> tags;
+    private @Getter @ManyToMany(fetch = FetchType.LAZY) @Fetch(FetchMode.SUBSELECT) @JoinTable(name = "sub_use_cases_in_solutions", inverseJoinColumns = @JoinColumn(name = "subusecase_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<SubUseCase> subUseCases;
+    private @Getter @ManyToMany(fetch = FetchType.LAZY) @Fetch(FetchMode.SUBSELECT) @JoinTable(name = "business_models_in_solutions", inverseJoinColumns = @JoinColumn(name = "businessmodel_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<BusinessModel> businessModels;
+    private @Getter @ManyToMany(fetch = FetchType.LAZY) @Fetch(FetchMode.SUBSELECT) @JoinTable(name = "regions_in_solutions", inverseJoinColumns = @JoinColumn(name = "region_id"), joinColumns = @JoinColumn(name = "solution_id")) Set<Region> regions;
 
-    private @Getter @OneToMany(fetch = FetchType.EAGER, targetEntity = SolutionTranslation.class, mappedBy = "solution", cascade = CascadeType.ALL) Set<SolutionTranslation> translations;
+    private @Getter @OneToMany(fetch = FetchType.LAZY, targetEntity = SolutionTranslation.class, mappedBy = "solution", cascade = CascadeType.ALL) @Fetch(FetchMode.SUBSELECT) Set<SolutionTranslation> translations;
     // private @Getter @OneToOne(mappedBy = "solution", cascade = CascadeType.ALL) @PrimaryKeyJoinColumn SolutionTranslation solutionTranslations;
 
     public Solution(@NotNull String name, @NotNull String description, String url, @NotNull int launch,
             Integer platform, Integer bundling, Integer registeredusers, Integer activeusers, Integer shfusers,
             Integer womenusers, Integer youthusers, Integer revenue, Double yieldlowerbound, Double yieldupperbound,
             Double incomelowerbound, Double incomeupperbound, @NotNull Organisation organisation,
-            @NotNull SubUseCase primarysubusecase, @NotNull String[] owners, Timestamp datemodifiedowner) {
+            @NotNull SubUseCase primarysubusecase, @NotNull Integer[] owners, Timestamp datemodifiedowner) {
         this.name = name;
         this.description = description;
         this.url = url;
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.database.dto;
+
+/**
+ * Option of an entry by property, a row of one query over all its reference
+ * tables: countries have a code instead of an id, sub use cases come with
+ * their use case and regions with their country.
+ */
+public interface DtoOption {
+    String getProperty();
+
+    Integer getId();
+
+    String getCode();
+
+    String getDescription();
+
+    Boolean getLmic();
+
+    Integer getUsecase();
+
+    String getUsecaseDescription();
+
+    String getCountry();
+
+    String getCountryDescription();
+
+    Boolean getCountryLmic();
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.database.dto;
+
+/**
+ * Scalar fields of a solution for the edit form; the yield and income bounds
+ * are real columns, read as Float to keep their decimal notation.
+ */
+public interface DtoSolutionFields {
+    String getName();
+
+    String getDescription();
+
+    String getUrl();
+
+    Integer getOrganisation();
+
+    Integer getLaunch();
+
+    Integer getPlatform();
+
+    Integer getBundling();
+
+    Integer getRegisteredusers();
+
+    Integer getActiveusers();
+
+    Integer getShfusers();
+
+    Integer getWomenusers();
+
+    Integer getYouthusers();
+
+    Integer getRevenue();
+
+    Float getYieldlowerbound();
+
+    Float getYieldupperbound();
+
+    Float getIncomelowerbound();
+
+    Float getIncomeupperbound();
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+package nl.wur.daghub.database.hibernate;
+
+import java.io.Serializable;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+
+public class TypeIntegerArray implements UserType {
+
+    @Override
+    public int[] sqlTypes() {
+        return new int[] { Types.ARRAY };
+    }
+
+    @Override
+    public Class<Integer[]> returnedClass() {
+        return Integer[].class;
+    }
+
+    @Override
+    public boolean equals(Object x, Object y) throws HibernateException {
+        if (x instanceof Integer[] && y instanceof Integer[]) {
+            return Arrays.equals((Integer[]) x, (Integer[]) y);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public int hashCode(Object x) throws HibernateException {
+        return Arrays.hashCode((Integer[]) x);
+    }
+
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SharedSessionContractImplementor session, Object owner)
+            throws HibernateException, SQLException {
+        Array array = rs.getArray(names[0]);
+        return array != null ? array.getArray() : null;
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SharedSessionContractImplementor session)
+            throws HibernateException, SQLException {
+        if (value != null && st != null) {
+            Array array = session.connection().createArrayOf("int4", (Integer[]) value);
+            st.setArray(index, array);
+        } else if (st != null) {
+            st.setNull(index, sqlTypes()[0]);
+        }
+    }
+
+    @Override
+    public Object deepCopy(Object value) throws HibernateException {
+        Integer[] a = (Integer[]) value;
+        return Arrays.copyOf(a, a.length);
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(Object value) throws HibernateException {
+        return (Serializable) value;
+    }
+
+    @Override
+    public Object assemble(Serializable cached, Object owner) throws HibernateException {
+        return cached;
+    }
+
+    @Override
+    public Object replace(Object original, Object target, Object owner) throws HibernateException {
+        return original;
+    }
+
+}
@@ -25,10 +25,14 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import nl.wur.daghub.database.domain.BusinessGrowthStage;
 
 public interface RepositoryBusinessGrowthStage extends Repository<BusinessGrowthStage, Integer> {
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<BusinessGrowthStage> findAll();
     Optional<BusinessGrowthStage> findById(Integer id);
 }
@@ -25,10 +25,14 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import nl.wur.daghub.database.domain.BusinessModel;
 
 public interface RepositoryBusinessModel extends Repository<BusinessModel, Integer> {
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<BusinessModel> findAll();
     Optional<BusinessModel> findById(Integer id);
 }
@@ -25,10 +25,14 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import nl.wur.daghub.database.domain.Channel;
 
 public interface RepositoryChannel extends Repository<Channel, Integer> {
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<Channel> findAll();
     Optional<Channel> findById(Integer id);
 }
@@ -25,10 +25,14 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import nl.wur.daghub.database.domain.Country;
 
 public interface RepositoryCountry extends Repository<Country, String> {
     Optional<Country> findById(String id);
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<Country> findAll();
 }
@@ -26,12 +26,17 @@ package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 import nl.wur.daghub.database.domain.Language;
 
 public interface RepositoryLanguage extends Repository<Language, Integer> {
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<Language> findAll();
     Optional<Language> findById(Integer id);
     Optional<Language> findByDescription(String description);
@@ -25,19 +25,57 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.security.access.prepost.PreAuthorize;
 import nl.wur.daghub.database.domain.Organisation;
 import nl.wur.daghub.database.dto.DtoIdName;
+import nl.wur.daghub.database.dto.DtoLanguageTranslation;
+import nl.wur.daghub.database.dto.DtoOption;
+import nl.wur.daghub.database.dto.DtoOrganisationFields;
 
 public interface RepositoryOrganisation extends PagingAndSortingRepository<Organisation, Integer> {
+    // edit form of an organisation: its fields, its options of all reference tables in one query, its translations
+    @Query(value = "SELECT o.name, o.description, o.url, o.founded"
+            + " FROM organisations o"
+            + " WHERE o.id = :id", nativeQuery = true)
+    Optional<DtoOrganisationFields> findFieldsById(@Param("id") int id);
+
+    @Query(value = "SELECT 'organisationtype' AS property, t.id, CAST(NULL AS text) AS code, t.description,"
+            + "        CAST(NULL AS boolean) AS lmic, CAST(NULL AS int) AS usecase, CAST(NULL AS text) AS \"usecaseDescription\","
+            + "        CAST(NULL AS text) AS country, CAST(NULL AS text) AS \"countryDescription\","
+            + "        CAST(NULL AS boolean) AS \"countryLmic\""
+            + " FROM organisations o JOIN organisation_types t ON t.id = o.organisationtype_id WHERE o.id = :id"
+            + " UNION ALL SELECT 'hqcountry', NULL, c.id, c.description, c.lmic, NULL, NULL, NULL, NULL, NULL"
+            + " FROM organisations o JOIN countries c ON c.id = o.hqcountry_id WHERE o.id = :id"
+            + " UNION ALL SELECT 'hqregion', r.id, NULL, r.description, NULL, NULL, NULL, c.id, c.description, c.lmic"
+            + " FROM organisations o"
+            + " JOIN regions r        ON r.id = o.hqregion_id"
+            + " LEFT JOIN countries c ON c.id = r.country_id"
+            + " WHERE o.id = :id"
+            + " UNION ALL SELECT 'businessFundingStage', b.id, NULL, b.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM organisations o JOIN business_funding_stages b ON b.id = o.business_funding_stage_id"
+            + " WHERE o.id = :id"
+            + " UNION ALL SELECT 'businessGrowthStage', b.id, NULL, b.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM organisations o JOIN business_growth_stages b ON b.id = o.business_growth_stage_id"
+            + " WHERE o.id = :id", nativeQuery = true)
+    List<DtoOption> findOptionsById(@Param("id") int id);
+
+    @Query(value = "SELECT l.id AS language, l.description, ot.translation"
+            + " FROM organisation_translations ot"
+            + " JOIN languages l ON l.id = ot.language_id"
+            + " WHERE ot.organisation_id = :id"
+            + " ORDER BY l.id", nativeQuery = true)
+    List<DtoLanguageTranslation> findTranslationsById(@Param("id") int id);
+
+    // the owners are matched by array overlap with the id of the user, which uses the GIN index on owners
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
-    @Query(value = "SELECT DISTINCT(o.id), o.name"
+    @Query(value = "SELECT o.id, o.name"
             + " FROM organisations o"
-            + " LEFT JOIN users u ON cast(u.id as text) = ANY(o.owners)"
             + " WHERE o.dateremoved IS NULL AND ("
             + "    (?#{hasRole('ADMIN')} AND (?#{authentication.name} not like 'inder.kumar@wur.nl' OR"
             + "                                 (?#{authentication.name} like 'inder.kumar@wur.nl' AND ("
@@ -45,31 +83,35 @@ public interface RepositoryOrganisation extends PagingAndSortingRepository<Organ
             + "                                    OR (SELECT COUNT(s.organisation_id) FROM solutions s WHERE s.organisation_id = o.id) = 0)"
             + "                                 )"
             + "                              )"
-            + "    ) OR (?#{hasRole('OWNER')} AND u.email like ?#{authentication.name}))"
+            + "    ) OR (?#{hasRole('OWNER')} AND o.owners && ARRAY(SELECT u.id FROM users u WHERE u.email like ?#{authentication.name})))"
             + " ORDER BY o.name", nativeQuery = true)
     Iterable<DtoIdName> findAllByUserRole();
 
     @Override
     // @PreAuthorize("#organisation?.user?.email == authentication?.name")
-    @PreAuthorize("hasRole('ADMIN') or #organisation.hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.isOwner(authentication, #organisation)")
     <S extends Organisation> S save(@Param("organisation") S organisation);
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
     @Query(value = "SELECT DISTINCT(cast(o.owners as text))"
             + " FROM organisations o"
-            + " LEFT JOIN users u ON cast(u.id as text) = ANY(o.owners)"
-            + " WHERE u.email like ?#{authentication.name}", nativeQuery = true)
+            + " WHERE o.owners && ARRAY(SELECT u.id FROM users u WHERE u.email like ?#{authentication.name})", nativeQuery = true)
     List<String> findOwners();
 
+    // ids of the organisations of an owner, resolved once into the principal of the user at login
+    @RestResource(exported = false)
+    @Query(value = "SELECT o.id FROM organisations o WHERE o.owners @> ARRAY[CAST(:id AS int4)]", nativeQuery = true)
+    List<Integer> findIdsByOwner(@Param("id") int id);
+
     @PreAuthorize("hasRole('ADMIN')")
     @Query(value = "SELECT id, url FROM Organisation WHERE dateremoved IS NULL ORDER BY id")
     List<List<Object>> findIdAndUrl();
 
     @Override
-    @PreAuthorize("hasRole('ADMIN') or @repositoryOrganisation.findById(#id)?.get().hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.ownsOrganisation(authentication, #id)")
     void deleteById(@Param("id") Integer id);
 
     @Override
-    @PreAuthorize("hasRole('ADMIN') or #organisation?.hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.isOwner(authentication, #organisation)")
     void delete(@Param("organisation") Organisation organisation);
 }
@@ -25,11 +25,15 @@
 package nl.wur.daghub.database.repository;
 
 import java.util.Optional;
+import javax.persistence.QueryHint;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.security.access.prepost.PreAuthorize;
 import nl.wur.daghub.database.domain.Region;
 
 public interface RepositoryRegion extends Repository<Region, Integer> {
+    @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = "reference-queries") })
     Iterable<Region> findAll();
     Optional<Region> findById(Integer id);
     Optional<Region> findByDescriptionAndCountryId(String description, String id);
@@ -24,31 +24,45 @@
 
 package nl.wur.daghub.database.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.security.access.prepost.PostAuthorize;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 
 import nl.wur.daghub.database.domain.Solution;
 import nl.wur.daghub.database.dto.DtoIdName;
 import nl.wur.daghub.database.dto.DtoKeyValue;
+import nl.wur.daghub.database.dto.DtoLanguageTranslation;
+import nl.wur.daghub.database.dto.DtoOption;
+import nl.wur.daghub.database.dto.DtoSearchSolution;
+import nl.wur.daghub.database.dto.DtoSolutionFields;
+import nl.wur.daghub.database.dto.DtoSolutionTable;
 import nl.wur.daghub.database.dto.DtoStatistics;
 import nl.wur.daghub.database.dto.DtoTable;
 
 public interface RepositorySolution extends PagingAndSortingRepository<Solution, Integer> {
+    @EntityGraph(value = "Solution.detail", type = EntityGraphType.LOAD)
+    List<Solution> findDetailByIdIn(Collection<Integer> ids);
+
+    // the owners are matched by array overlap with the id of the user, which uses the GIN index on owners
     @PreAuthorize("hasRole('ADMIN') or hasRole('OWNER')")
-    @Query(value = "SELECT DISTINCT(s.id), s.name"
+    @Query(value = "SELECT s.id, s.name"
             + " FROM solutions s"
-            + " LEFT JOIN users u ON cast(u.id as text) = ANY(s.owners)"
             + " WHERE s.dateremoved IS NULL AND ("
             + "    (?#{hasRole('ADMIN')} AND (?#{authentication.name} not like 'inder.kumar@wur.nl' OR"
             + "                                 (?#{authentication.name} like 'inder.kumar@wur.nl' AND s.visible IS NULL)"
             + "                              )"
-            + "    ) OR (?#{hasRole('OWNER')} AND u.email like ?#{authentication.name}))"
+            + "    ) OR (?#{hasRole('OWNER')} AND s.owners && ARRAY(SELECT u.id FROM users u WHERE u.email like ?#{authentication.name})))"
             + " ORDER BY s.name", nativeQuery = true)
     Iterable<DtoIdName> findAllByUserRole();
 
@@ -62,128 +76,208 @@ public interface RepositorySolution extends PagingAndSortingRepository<Solution,
     // used only in test
     @Query(value = "SELECT *"
             + " FROM solutions s"
-            + " LEFT JOIN users u ON cast(u.id as text) = ANY(s.owners)"
-            + " WHERE ?#{hasRole('ADMIN')} OR u.email like ?#{authentication.name}", nativeQuery = true)
+            + " WHERE ?#{hasRole('ADMIN')} OR s.owners && ARRAY(SELECT u.id FROM users u WHERE u.email like ?#{authentication.name})", nativeQuery = true)
     Iterable<Solution> findAllForOwner();
 
     // used only in test
     // @PostAuthorize("returnObject.orElse(null)?.user?.email == authentication?.name")
-    @PostAuthorize("hasRole('ADMIN') or returnObject.hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PostAuthorize("hasRole('ADMIN') or @ownership.isOwner(authentication, returnObject)")
     @Query("SELECT s FROM Solution s WHERE s.id = :id")
     Solution findByIdForOwner(@Param("id") Integer id);
 
     @Override
-    @PreAuthorize("hasRole('ADMIN') or #solution.hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.isOwner(authentication, #solution)")
     <S extends Solution> S save(@Param("solution") S solution);
 
     @Override
-    @PreAuthorize("hasRole('ADMIN') or @repositorySolution.findById(#id)?.get().hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.ownsSolution(authentication, #id)")
     void deleteById(@Param("id") Integer id);
 
     @Override
-    @PreAuthorize("hasRole('ADMIN') or #solution.hasOwner(@repositoryUser.findByEmail(authentication?.name)?.get().getId())")
+    @PreAuthorize("hasRole('ADMIN') or @ownership.isOwner(authentication, #solution)")
     void delete(@Param("solution") Solution solution);
 
+    // ids of the solutions of an owner, resolved once into the principal of the user at login
+    @RestResource(exported = false)
+    @Query(value = "SELECT s.id FROM solutions s WHERE s.owners @> ARRAY[CAST(:id AS int4)]", nativeQuery = true)
+    List<Integer> findIdsByOwner(@Param("id") int id);
+
     @PreAuthorize("hasRole('ADMIN')")
     @Query(value = "SELECT id, url FROM Solution WHERE dateremoved IS NULL ORDER BY id")
     List<List<Object>> findIdAndUrl();
 
-    @Query(value = "SELECT DISTINCT(s.id) as id, s.name as name, o.name as organisationname"
-            + " FROM solutions s"
-            + " LEFT JOIN organisations o ON o.id = s.organisation_id"
-            + " WHERE s.dateremoved IS NULL AND s.visible = true AND"
-            + "    (s.url ILIKE concat('%',:email,'%') OR s.name ILIKE concat('%',:company,'%') OR :company ILIKE concat('%',s.name,'%')"
-            + "    OR o.url ILIKE concat('%',:email,'%') OR o.name ILIKE concat('%',:company,'%') OR :company ILIKE concat('%',o.name,'%'))", nativeQuery = true)
+    // solutions of a registering user: the domain of its email in a url, or its company in a name (both ways), as
+    // substrings; the words of the domain among the url domains and the names equal to a run of words of the company
+    // (punctuation ignored) match as well. An empty company matches nothing
+    @Query(value = "SELECT s.id as id, s.name as name, o.name as organisationname"
+            + " FROM solution_facets f"
+            + " CROSS JOIN search_query(CAST(:email AS text), '&', 'AB') AS e(query)"
+            + " CROSS JOIN name_spans(CAST(:company AS text)) AS n(names)"
+            + " JOIN solutions s      ON s.id = f.solution_id"
+            + " JOIN organisations o  ON o.id = s.organisation_id"
+            + " WHERE f.document @@ e.query OR f.names && n.names"
+            + "    OR s.url ILIKE concat('%',:email,'%') OR o.url ILIKE concat('%',:email,'%')"
+            + "    OR s.name ILIKE ('%' || NULLIF(:company,'') || '%') OR :company ILIKE concat('%',s.name,'%')"
+            + "    OR o.name ILIKE ('%' || NULLIF(:company,'') || '%') OR :company ILIKE concat('%',o.name,'%')"
+            + " ORDER BY s.id", nativeQuery = true)
     List<Map<String, Object>> findByEmailOrCompany(String email, String company);
 
-    @Query(value = "SELECT cis.country_id AS key, COUNT(cis.solution_id) AS value"
-            + " FROM countries_in_solutions cis"
-            + " LEFT JOIN countries c ON c.id = cis.country_id"
-            + " WHERE c.lmic = true AND (COALESCE(:countries, NULL) IS NULL OR cis.country_id IN :countries) AND cis.solution_id IN :solutions"
-            + " GROUP BY cis.country_id"
-            + " ORDER BY cis.country_id", nativeQuery = true)
-    Iterable<DtoKeyValue<String, Integer>> countSolutionByCountry(@Param("countries") Iterable<String> countries,
-            @Param("solutions") Iterable<Integer> solutions);
-
-    @Query(value = "SELECT s.launch AS key, COUNT(s.id) AS value"
-            + " FROM solutions s"
-            + " WHERE s.dateremoved IS NULL AND s.id IN :solutions"
-            + " GROUP BY s.launch"
-            + " ORDER BY s.launch", nativeQuery = true)
-    Iterable<DtoKeyValue<Integer, Integer>> countSolutionByLaunch(@Param("solutions") Iterable<Integer> solutions);
-
-    @Query(value = "SELECT ot.description AS key, COUNT(s.id) AS value"
-            + " FROM solutions s"
-            + " LEFT JOIN organisations o       ON o.id = s.organisation_id"
-            + " LEFT JOIN organisation_types ot ON ot.id = o.organisationtype_id"
-            + " WHERE s.dateremoved IS NULL AND s.id IN :solutions"
+    // lists are bound as one array literal (SqlArray.of): the statement is the same for every length.
+    // The filter and the counts read the read model solution_facets: one row per visible, non-removed solution
+    // with the ids of its technologies, channels, use cases, tags and LMIC countries as indexed arrays
+    @Query(value = "SELECT u.country AS key, COUNT(*) AS value"
+            + " FROM solution_facets f"
+            + " CROSS JOIN unnest(f.countries) AS u(country)"
+            + " WHERE (cardinality(CAST(:countries AS text[])) = 0 OR u.country = ANY(CAST(:countries AS text[]))) AND f.solution_id = ANY(CAST(:solutions AS int[]))"
+            + " GROUP BY u.country"
+            + " ORDER BY u.country", nativeQuery = true)
+    Iterable<DtoKeyValue<String, Integer>> countSolutionByCountry(@Param("countries") String countries,
+            @Param("solutions") String solutions);
+
+    @Query(value = "SELECT f.launch AS key, COUNT(*) AS value"
+            + " FROM solution_facets f"
+            + " WHERE f.solution_id = ANY(CAST(:solutions AS int[]))"
+            + " GROUP BY f.launch"
+            + " ORDER BY f.launch", nativeQuery = true)
+    Iterable<DtoKeyValue<Integer, Integer>> countSolutionByLaunch(@Param("solutions") String solutions);
+
+    @Query(value = "SELECT ot.description AS key, COUNT(*) AS value"
+            + " FROM solution_facets f"
+            + " JOIN organisation_types ot ON ot.id = f.organisationtype_id"
+            + " WHERE f.solution_id = ANY(CAST(:solutions AS int[]))"
             + " GROUP BY ot.description"
             + " ORDER BY ot.description", nativeQuery = true)
     Iterable<DtoKeyValue<String, Integer>> countSolutionByOrganisationType(
-            @Param("solutions") Iterable<Integer> solutions);
+            @Param("solutions") String solutions);
 
-    @Query(value = "SELECT t.description AS key, COUNT(tis.solution_id) AS value"
-            + " FROM technologies_in_solutions tis"
-            + " LEFT JOIN technologies t ON t.id = tis.technology_id"
-            + " WHERE tis.solution_id IN :solutions"
+    @Query(value = "SELECT t.description AS key, COUNT(*) AS value"
+            + " FROM solution_facets f"
+            + " CROSS JOIN unnest(f.technologies) AS u(technology)"
+            + " JOIN technologies t ON t.id = u.technology"
+            + " WHERE f.solution_id = ANY(CAST(:solutions AS int[]))"
             + " GROUP BY t.description"
             + " ORDER BY t.description", nativeQuery = true)
     Iterable<DtoKeyValue<String, Integer>> countSolutionByTechnology(
-            @Param("solutions") Iterable<Integer> solutions);
+            @Param("solutions") String solutions);
 
-    @Query(value = "SELECT uc.description AS key, COUNT(DISTINCT(sucis.solution_id)) AS value"
-            + " FROM sub_use_cases_in_solutions sucis"
-            + " LEFT JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id"
-            + " LEFT JOIN use_cases uc      ON uc.id = suc.usecase_id"
-            + " WHERE sucis.solution_id IN :solutions"
+    @Query(value = "SELECT uc.description AS key, COUNT(DISTINCT(f.solution_id)) AS value"
+            + " FROM solution_facets f"
+            + " CROSS JOIN unnest(f.usecases) AS u(usecase)"
+            + " JOIN use_cases uc ON uc.id = u.usecase"
+            + " WHERE f.solution_id = ANY(CAST(:solutions AS int[]))"
             + " GROUP BY uc.description"
             + " ORDER BY uc.description", nativeQuery = true)
-    Iterable<DtoKeyValue<String, Integer>> countSolutionByUseCase(@Param("solutions") Iterable<Integer> solutions);
-
-    @Query(value = "SELECT tempTable.usecase_number AS key, COUNT(tempTable.solution) AS value"
-            + " FROM (SELECT sucis.solution_id AS solution, COUNT(DISTINCT(suc.usecase_id)) AS usecase_number"
-            + "       FROM sub_use_cases_in_solutions sucis"
-            + "       LEFT JOIN sub_use_cases suc ON suc.id = sucis.subusecase_id"
-            + "       WHERE sucis.solution_id IN :solutions"
-            + "       GROUP BY sucis.solution_id) AS tempTable"
-            + " GROUP BY tempTable.usecase_number"
-            + " ORDER BY tempTable.usecase_number", nativeQuery = true)
+    Iterable<DtoKeyValue<String, Integer>> countSolutionByUseCase(@Param("solutions") String solutions);
+
+    @Query(value = "SELECT cardinality(f.usecases) AS key, COUNT(*) AS value"
+            + " FROM solution_facets f"
+            + " WHERE f.solution_id = ANY(CAST(:solutions AS int[])) AND cardinality(f.usecases) > 0"
+            + " GROUP BY cardinality(f.usecases)"
+            + " ORDER BY cardinality(f.usecases)", nativeQuery = true)
     Iterable<DtoKeyValue<Integer, Integer>> countSolutionByUseCaseNumber(
-            @Param("solutions") Iterable<Integer> solutions);
+            @Param("solutions") String solutions);
 
     @Query(value = "WITH temp AS (SELECT registeredusers, (CASE WHEN :column = 'women' THEN womenusers WHEN :column = 'youth' THEN youthusers ELSE shfusers END) as users"
-            + " FROM solutions WHERE id IN :solutions AND NOT (CASE WHEN :column = 'women' THEN womenusers WHEN :column = 'youth' THEN youthusers ELSE shfusers END) IS NULL)"
+            + " FROM solution_facets WHERE solution_id = ANY(CAST(:solutions AS int[])) AND NOT (CASE WHEN :column = 'women' THEN womenusers WHEN :column = 'youth' THEN youthusers ELSE shfusers END) IS NULL)"
             + " (SELECT :column AS label, 'min' AS statistic, registeredusers, users FROM temp ORDER BY users ASC LIMIT 1) UNION"
             + " (SELECT :column AS label, 'max' AS statistic, registeredusers, users FROM temp ORDER BY users DESC LIMIT 1) UNION"
             + " (SELECT :column AS label, 'avg' AS statistic, ROUND(AVG(registeredusers), 3) AS registeredusers, ROUND(AVG(users), 3) AS users FROM temp)", nativeQuery = true)
-    List<DtoStatistics> getStatistics(@Param("solutions") Iterable<Integer> solutions,
+    List<DtoStatistics> getStatistics(@Param("solutions") String solutions,
             @Param("column") String column);
 
-    @Query(value = "SELECT DISTINCT(s.id)"
-            + " FROM solutions s"
-            + " LEFT JOIN technologies_in_solutions techis ON s.id = techis.solution_id"
-            + " LEFT JOIN channels_in_solutions       chis ON s.id = chis.solution_id"
-            + " LEFT JOIN sub_use_cases_in_solutions sucis ON s.id = sucis.solution_id"
-            + " LEFT JOIN sub_use_cases                suc ON suc.id = sucis.subusecase_id"
-            + " LEFT JOIN organisations                  o ON s.organisation_id = o.id"
-            + " LEFT JOIN tags_in_solutions          tagis ON s.id = tagis.solution_id"
-            + " LEFT JOIN countries_in_solutions       cis ON s.id = cis.solution_id"
-            + " LEFT JOIN countries                      c ON c.id = cis.country_id"
-            + " WHERE c.lmic = true AND s.dateremoved IS NULL AND s.visible = true"
-            + " AND (COALESCE(:technologies, NULL) IS NULL         OR techis.technology_id       IN :technologies)"
-            + " AND (COALESCE(:channels, NULL) IS NULL             OR chis.channel_id            IN :channels)"
-            + " AND (COALESCE(:useCases, NULL) IS NULL             OR suc.usecase_id             IN :useCases)"
-            + " AND (COALESCE(:organisationTypes, NULL) IS NULL    OR o.organisationtype_id      IN :organisationTypes)"
-            + " AND (COALESCE(:businessGrowthStages, NULL) IS NULL OR o.business_growth_stage_id IN :businessGrowthStages)"
-            + " AND (COALESCE(:tags, NULL) IS NULL                 OR tagis.tag_id               IN :tags)"
-            + " AND (COALESCE(:countries, NULL) IS NULL            OR cis.country_id             IN :countries)", nativeQuery = true)
-    Iterable<Integer> filterSolutions(@Param("technologies") Iterable<Integer> technologies,
-            @Param("channels") Iterable<Integer> channels,
-            @Param("useCases") Iterable<Integer> useCases,
-            @Param("organisationTypes") Iterable<Integer> organisationTypes,
-            @Param("businessGrowthStages") Iterable<Integer> businessGrowthStages,
-            @Param("tags") Iterable<Integer> tags,
-            @Param("countries") Iterable<String> countries);
+    // a solution is shown when it has at least one LMIC country and matches one of the ids of every filter
+    @Query(value = "SELECT f.solution_id"
+            + " FROM solution_facets f"
+            + " WHERE cardinality(f.countries) > 0"
+            + " AND (cardinality(CAST(:technologies AS int[])) = 0         OR f.technologies && CAST(:technologies AS int[]))"
+            + " AND (cardinality(CAST(:channels AS int[])) = 0             OR f.channels     && CAST(:channels AS int[]))"
+            + " AND (cardinality(CAST(:useCases AS int[])) = 0             OR f.usecases     && CAST(:useCases AS int[]))"
+            + " AND (cardinality(CAST(:organisationTypes AS int[])) = 0    OR f.organisationtype_id      = ANY(CAST(:organisationTypes AS int[])))"
+            + " AND (cardinality(CAST(:businessGrowthStages AS int[])) = 0 OR f.business_growth_stage_id = ANY(CAST(:businessGrowthStages AS int[])))"
+            + " AND (cardinality(CAST(:tags AS int[])) = 0                 OR f.tags         && CAST(:tags AS int[]))"
+            + " AND (cardinality(CAST(:countries AS text[])) = 0           OR f.countries    && CAST(:countries AS text[]))"
+            + " ORDER BY f.solution_id", nativeQuery = true)
+    Iterable<Integer> filterSolutions(@Param("technologies") String technologies,
+            @Param("channels") String channels,
+            @Param("useCases") String useCases,
+            @Param("organisationTypes") String organisationTypes,
+            @Param("businessGrowthStages") String businessGrowthStages,
+            @Param("tags") String tags,
+            @Param("countries") String countries);
+
+    // matches of the full-text search on the document of the read model (prefixes of all the words of the text)
+    // within the filters of filterSolutions, shared by searchSolutions and countSearchSolutions
+    String SEARCH_MATCHES = " FROM solution_facets f"
+            + " CROSS JOIN search_query(CAST(:text AS text), '&', '') AS q(query)"
+            + " JOIN solutions s     ON s.id = f.solution_id"
+            + " JOIN organisations o ON o.id = s.organisation_id"
+            + " WHERE f.document @@ q.query AND cardinality(f.countries) > 0"
+            + " AND (cardinality(CAST(:technologies AS int[])) = 0         OR f.technologies && CAST(:technologies AS int[]))"
+            + " AND (cardinality(CAST(:channels AS int[])) = 0             OR f.channels     && CAST(:channels AS int[]))"
+            + " AND (cardinality(CAST(:useCases AS int[])) = 0             OR f.usecases     && CAST(:useCases AS int[]))"
+            + " AND (cardinality(CAST(:organisationTypes AS int[])) = 0    OR f.organisationtype_id      = ANY(CAST(:organisationTypes AS int[])))"
+            + " AND (cardinality(CAST(:businessGrowthStages AS int[])) = 0 OR f.business_growth_stage_id = ANY(CAST(:businessGrowthStages AS int[])))"
+            + " AND (cardinality(CAST(:tags AS int[])) = 0                 OR f.tags         && CAST(:tags AS int[]))"
+            + " AND (cardinality(CAST(:countries AS text[])) = 0           OR f.countries    && CAST(:countries AS text[]))";
+
+    // ranked page of the matches; total is the number of matches, counted before the page is cut
+    @RestResource(exported = false)
+    @Query(value = "SELECT f.solution_id AS id, s.name, o.name AS organisationname,"
+            + " CAST(ts_rank(f.document, q.query) AS float8) AS rank, count(*) OVER () AS total"
+            + SEARCH_MATCHES
+            + " ORDER BY rank DESC, f.solution_id"
+            + " LIMIT :size OFFSET :offset", nativeQuery = true)
+    List<DtoSearchSolution> searchSolutions(@Param("text") String text,
+            @Param("technologies") String technologies,
+            @Param("channels") String channels,
+            @Param("useCases") String useCases,
+            @Param("organisationTypes") String organisationTypes,
+            @Param("businessGrowthStages") String businessGrowthStages,
+            @Param("tags") String tags,
+            @Param("countries") String countries,
+            @Param("size") int size,
+            @Param("offset") long offset);
+
+    // number of matches, for a page past the last one
+    @RestResource(exported = false)
+    @Query(value = "SELECT count(*)" + SEARCH_MATCHES, nativeQuery = true)
+    long countSearchSolutions(@Param("text") String text,
+            @Param("technologies") String technologies,
+            @Param("channels") String channels,
+            @Param("useCases") String useCases,
+            @Param("organisationTypes") String organisationTypes,
+            @Param("businessGrowthStages") String businessGrowthStages,
+            @Param("tags") String tags,
+            @Param("countries") String countries);
+
+    // rebuilds the rows of the read model of the given solutions (array literal) after they are written,
+    // returns the number of rows of visible, non-removed solutions
+    @RestResource(exported = false)
+    @Transactional
+    @Query(value = "SELECT refresh_solution_facets(CAST(:ids AS int[]))", nativeQuery = true)
+    int refreshFacets(@Param("ids") String ids);
+
+    @RestResource(exported = false)
+    @Transactional
+    @Query(value = "SELECT refresh_solution_facets(ARRAY(SELECT s.id FROM solutions s WHERE s.organisation_id = :id))", nativeQuery = true)
+    int refreshFacetsByOrganisationId(@Param("id") int id);
+
+    @RestResource(exported = false)
+    @Transactional
+    @Query(value = "SELECT refresh_solution_facets(NULL)", nativeQuery = true)
+    int refreshAllFacets();
+
+    // high-water mark of the solutions changed by the transactions writing solutions, organisations, their
+    // translations or links; the transactions below it have completed
+    @RestResource(exported = false)
+    @Query(value = "SELECT data_version()", nativeQuery = true)
+    long findDataVersion();
+
+    @RestResource(exported = false)
+    @Query(value = "SELECT DISTINCT c.solution_id FROM solution_changes c"
+            + " WHERE c.xact_id >= :since AND c.xact_id < :until"
+            + " ORDER BY c.solution_id", nativeQuery = true)
+    List<Integer> findIdsChanged(@Param("since") long since, @Param("until") long until);
 
     @Query(value = "SELECT DISTINCT(c.id) AS key, c.description AS value"
             + " FROM countries_in_solutions cis"
@@ -239,40 +333,93 @@ public interface RepositorySolution extends PagingAndSortingRepository<Solution,
             + " ORDER BY uc.description", nativeQuery = true)
     Iterable<DtoKeyValue<Integer, String>> findUseCase();
 
-    @Query(value = "SELECT c.id, c.description"
+    // edit form of a solution: its fields, its options of all reference tables in one query, its translations
+    @Query(value = "SELECT s.name, s.description, s.url, s.organisation_id AS organisation, s.launch, s.platform,"
+            + " s.bundling, s.registeredusers, s.activeusers, s.shfusers, s.womenusers, s.youthusers, s.revenue,"
+            + " s.yieldlowerbound, s.yieldupperbound, s.incomelowerbound, s.incomeupperbound"
+            + " FROM solutions s"
+            + " WHERE s.id = :id", nativeQuery = true)
+    Optional<DtoSolutionFields> findFieldsById(@Param("id") int id);
+
+    @Query(value = "SELECT 'primarysubusecase' AS property, su.id, CAST(NULL AS text) AS code, su.description,"
+            + "        CAST(NULL AS boolean) AS lmic, u.id AS usecase, u.description AS \"usecaseDescription\","
+            + "        CAST(NULL AS text) AS country, CAST(NULL AS text) AS \"countryDescription\","
+            + "        CAST(NULL AS boolean) AS \"countryLmic\""
+            + " FROM solutions s"
+            + " JOIN sub_use_cases su ON su.id = s.primarysubusecase_id"
+            + " JOIN use_cases u      ON u.id = su.usecase_id"
+            + " WHERE s.id = :id"
+            + " UNION ALL SELECT 'subUseCases', su.id, NULL, su.description, NULL, u.id, u.description, NULL, NULL, NULL"
+            + " FROM solutions s"
+            + " JOIN sub_use_cases_in_solutions sucis ON sucis.solution_id = s.id"
+            + " JOIN sub_use_cases su ON su.id = sucis.subusecase_id AND su.id <> s.primarysubusecase_id"
+            + " JOIN use_cases u      ON u.id = su.usecase_id"
+            + " WHERE s.id = :id"
+            + " UNION ALL SELECT 'regions', r.id, NULL, r.description, NULL, NULL, NULL, c.id, c.description, c.lmic"
+            + " FROM regions_in_solutions ris"
+            + " JOIN regions r        ON r.id = ris.region_id"
+            + " LEFT JOIN countries c ON c.id = r.country_id"
+            + " WHERE ris.solution_id = :id"
+            + " UNION ALL SELECT 'countries', NULL, c.id, c.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM countries_in_solutions cis JOIN countries c ON c.id = cis.country_id WHERE cis.solution_id = :id"
+            + " UNION ALL SELECT 'businessModels', b.id, NULL, b.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM business_models_in_solutions bmis JOIN business_models b ON b.id = bmis.businessmodel_id"
+            + " WHERE bmis.solution_id = :id"
+            + " UNION ALL SELECT 'channels', c.id, NULL, c.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM channels_in_solutions cis JOIN channels c ON c.id = cis.channel_id WHERE cis.solution_id = :id"
+            + " UNION ALL SELECT 'languages', l.id, NULL, l.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM languages_in_solutions lis JOIN languages l ON l.id = lis.language_id WHERE lis.solution_id = :id"
+            + " UNION ALL SELECT 'sectors', s.id, NULL, s.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM sectors_in_solutions sis JOIN sectors s ON s.id = sis.sector_id WHERE sis.solution_id = :id"
+            + " UNION ALL SELECT 'tags', t.id, NULL, t.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM tags_in_solutions tis JOIN tags t ON t.id = tis.tag_id WHERE tis.solution_id = :id"
+            + " UNION ALL SELECT 'technologies', t.id, NULL, t.description, NULL, NULL, NULL, NULL, NULL, NULL"
+            + " FROM technologies_in_solutions tis JOIN technologies t ON t.id = tis.technology_id"
+            + " WHERE tis.solution_id = :id"
+            + " ORDER BY 1, 2, 3", nativeQuery = true)
+    List<DtoOption> findOptionsById(@Param("id") int id);
+
+    @Query(value = "SELECT l.id AS language, l.description, st.translation"
+            + " FROM solution_translations st"
+            + " JOIN languages l ON l.id = st.language_id"
+            + " WHERE st.solution_id = :id"
+            + " ORDER BY l.id", nativeQuery = true)
+    List<DtoLanguageTranslation> findTranslationsById(@Param("id") int id);
+
+    @Query(value = "SELECT cis.solution_id AS solution, c.id, c.description"
             + " FROM channels_in_solutions cis"
             + " LEFT JOIN channels c ON c.id = cis.channel_id"
-            + " WHERE cis.solution_id = :id"
-            + " ORDER BY c.id", nativeQuery = true)
-    Iterable<DtoTable<Integer>> findChannelsById(@Param("id") int id);
+            + " WHERE cis.solution_id = ANY(CAST(:ids AS int[]))"
+            + " ORDER BY cis.solution_id, c.id", nativeQuery = true)
+    List<DtoSolutionTable<Integer>> findChannelsByIds(@Param("ids") String ids);
 
-    @Query(value = "SELECT c.id, c.description"
+    @Query(value = "SELECT cis.solution_id AS solution, c.id, c.description"
             + " FROM countries_in_solutions cis"
             + " LEFT JOIN countries c ON c.id = cis.country_id"
-            + " WHERE cis.solution_id = :id"
-            + " ORDER BY c.id", nativeQuery = true)
-    Iterable<DtoTable<String>> findCountriesById(@Param("id") int id);
+            + " WHERE cis.solution_id = ANY(CAST(:ids AS int[]))"
+            + " ORDER BY cis.solution_id, c.id", nativeQuery = true)
+    List<DtoSolutionTable<String>> findCountriesByIds(@Param("ids") String ids);
 
-    @Query(value = "SELECT l.id, l.description"
+    @Query(value = "SELECT lis.solution_id AS solution, l.id, l.description"
             + " FROM languages_in_solutions lis"
             + " LEFT JOIN languages l ON l.id = lis.language_id"
-            + " WHERE lis.solution_id = :id"
-            + " ORDER BY l.id", nativeQuery = true)
-    Iterable<DtoTable<Integer>> findLanguagesById(@Param("id") int id);
+            + " WHERE lis.solution_id = ANY(CAST(:ids AS int[]))"
+            + " ORDER BY lis.solution_id, l.id", nativeQuery = true)
+    List<DtoSolutionTable<Integer>> findLanguagesByIds(@Param("ids") String ids);
 
-    @Query(value = "SELECT s.id, s.description"
+    @Query(value = "SELECT sis.solution_id AS solution, s.id, s.description"
             + " FROM sectors_in_solutions sis"
             + " LEFT JOIN sectors s ON s.id = sis.sector_id"
-            + " WHERE sis.solution_id = :id"
-            + " ORDER BY s.id", nativeQuery = true)
-    Iterable<DtoTable<Integer>> findSectorsById(@Param("id") int id);
+            + " WHERE sis.solution_id = ANY(CAST(:ids AS int[]))"
+            + " ORDER BY sis.solution_id, s.id", nativeQuery = true)
+    List<DtoSolutionTable<Integer>> findSectorsByIds(@Param("ids") String ids);
 
-    @Query(value = "SELECT t.id, t.description"
+    @Query(value = "SELECT tis.solution_id AS solution, t.id, t.description"
             + " FROM technologies_in_solutions tis"
             + " LEFT JOIN technologies t ON t.id = tis.technology_id"
-            + " WHERE tis.solution_id = :id"
-            + " ORDER BY t.id", nativeQuery = true)
-    Iterable<DtoTable<Integer>> findTechnologiesById(@Param("id") int id);
+            + " WHERE tis.solution_id = ANY(CAST(:ids AS int[]))"
+            + " ORDER BY tis.solution_id, t.id", nativeQuery = true)
+    List<DtoSolutionTable<Integer>> findTechnologiesByIds(@Param("ids") String ids);
 
     @Query(value = "SELECT suc.id, suc.description"
             + " FROM sub_use_cases suc"
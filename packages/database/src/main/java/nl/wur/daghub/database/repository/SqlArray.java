@@ -0,0 +1,48 @@
+/**
+ * Copyright 2022 Wageningen Environmental Research, Wageningen UR
+ * Licensed under the EUPL, Version 1.2 or as soon they
+ * will be approved by the European Commission - subsequent
+ * versions of the EUPL (the "Licence");
+ * You may not use this work except in compliance with the
+ * Licence.
+ * You may obtain a copy of the Licence at:
+ *
+ * https://joinup.ec.europa.eu/software/page/eupl
+ *
+ * Unless required by applicable law or agreed to in
+ * writing, software distributed under the Licence is
+ * distributed on an "AS IS" basis,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied.
+ * See the Licence for the specific language governing
+ * permissions and limitations under the Licence.
+ */
+
+/**
+* @author Eliya Buyukkaya (eliya.buyukkaya@wur.nl)
+*/
+
+
+package nl.wur.daghub.database.repository;
+
+import java.util.StringJoiner;
+
+/**
+ * PostgreSQL array literal of a list, bound as one text parameter and used as
+ * {@code = ANY(CAST(:list AS int[]))} instead of {@code IN :list}. The SQL
+ * then does not depend on the length of the list, so one prepared statement
+ * (and plan) serves all lengths. A null list is bound as an empty array.
+ */
+public final class SqlArray {
+    private SqlArray() {
+    }
+
+    public static String of(Iterable<?> values) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        if (values != null)
+            for (Object value : values)
+                joiner.add(value instanceof Number ? value.toString()
+                        : "\"" + value.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+        return joiner.toString();
+    }
+}